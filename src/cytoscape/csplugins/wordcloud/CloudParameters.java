@@ -25,12 +25,12 @@ package cytoscape.csplugins.wordcloud;
 import java.awt.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.StringTokenizer;
 
 import javax.swing.JFormattedTextField;
 import javax.swing.JOptionPane;
@@ -66,13 +66,21 @@ public class CloudParameters implements Comparable<CloudParameters>
 	private Integer maxWords;
 	private Integer cloudNum; //Used to order the clouds for each network
 	
-	private HashMap<String, List<String>> stringNodeMapping;
-	private HashMap<String, Integer> networkCounts; // counts for whole network
-	private HashMap<String, Integer> selectedCounts; // counts for selected nodes
-	private HashMap<String, Integer> networkPairCounts;
-	private HashMap<String, Integer> selectedPairCounts;
-	private HashMap<String, Double> ratios;
-	private HashMap<String, Double> pairRatios;
+	//Word structures are keyed by WordDictionary ID
+	private WordPostings[] wordPostings; // nodes containing each word, for each attribute
+	private NodeWordMatrix[] wordMatrices; // counted words of each node, for each attribute
+	private boolean postingsComplete = false; //true when wordPostings and wordMatrices match the network counts
+	private NetworkCounts sharedCounts; //network counts borrowed from networkParams, or null
+	private String sharedCountsKey;
+	private IntIntHashMap networkCounts; // counts for whole network
+	private IntIntHashMap selectedCounts; // counts for selected nodes
+	private LongIntHashMap networkPairCounts; // keyed by LongIntHashMap.pairKey, null until needed
+	private LongIntHashMap selectedPairCounts; // null until needed
+	private BitSet countedPositions; //network positions the selected counts are from, or null
+	private int[] ratioIds; // sorted IDs of the selected words
+	private double[] ratioValues; // ratio of each word in ratioIds
+	private LongIntHashMap pairRatioIndex; // index + 1 in pairRatioValues of each pair key, null until needed
+	private double[] pairRatioValues;
 	private ArrayList<CloudWordInfo> cloudWords;
 	
 	
@@ -117,13 +125,16 @@ public class CloudParameters implements Comparable<CloudParameters>
 	public CloudParameters()
 	{
 		this.selectedNodes = new ArrayList<String>();
-		this.stringNodeMapping = new HashMap<String, List<String>>();
-		this.networkCounts = new HashMap<String, Integer>();
-		this.selectedCounts = new HashMap<String, Integer>();
-		this.networkPairCounts = new HashMap<String, Integer>();
-		this.selectedPairCounts = new HashMap<String, Integer>();
-		this.ratios = new HashMap<String, Double>();
-		this.pairRatios = new HashMap<String, Double>();
+		this.wordPostings = new WordPostings[0];
+		this.wordMatrices = new NodeWordMatrix[0];
+		this.networkCounts = new IntIntHashMap();
+		this.selectedCounts = new IntIntHashMap();
+		this.networkPairCounts = new LongIntHashMap();
+		this.selectedPairCounts = new LongIntHashMap();
+		this.ratioIds = new int[0];
+		this.ratioValues = new double[0];
+		this.pairRatioIndex = new LongIntHashMap();
+		this.pairRatioValues = new double[0];
 		this.cloudWords = new ArrayList<CloudWordInfo>();
 		
 		this.netWeightFactor = this.getDefaultNetWeight();
@@ -252,8 +263,12 @@ public class CloudParameters implements Comparable<CloudParameters>
 	//Calculate Counts
 	
 	/**
-	 * Constructs stringNodeMapping and networkCounts based on the list of
-	 * nodes contained in networkParams.
+	 * Constructs networkCounts based on the list of nodes contained in
+	 * networkParams.  The counts and postings of each attribute are kept by
+	 * networkParams, so only attributes no cloud has counted yet are read
+	 * from the nodes and the rest is a sum of the counts of each attribute.
+	 * When another cloud has already counted the network with the same
+	 * attributes, filter and delimiters, its counts are borrowed instead.
 	 */
 	public void initializeNetworkCounts()
 	{
@@ -262,20 +277,104 @@ public class CloudParameters implements Comparable<CloudParameters>
 			return;
 		
 		//Clear old counts
-		this.networkCounts = new HashMap<String, Integer>();
-		this.networkPairCounts = new HashMap<String, Integer>();
-		this.stringNodeMapping = new HashMap<String, List<String>>();
+		this.releaseNetworkCounts();
+		this.networkCounts = new IntIntHashMap();
+		this.networkPairCounts = null;
 		
 		
 		//Retrieve needed variables from parent parameters
 		SemanticSummaryParameters networkParams = this.getNetworkParams();
 		List<String> networkNodes = networkParams.getNetworkNodes();
+		WordTokenizer tokenizer = networkParams.getDelimiter().getTokenizer();
+		WordDictionary dictionary = WordDictionary.getInstance();
+		networkParams.getTokenCache().checkVersion(tokenizer.getVersion());
+		
+		//Borrow the counts if another cloud has made them
+		String countsKey = networkParams.getNetworkCountsKey(attributeNames);
+		NetworkCounts counts = networkParams.borrowNetworkCounts(countsKey);
+		if (counts != null)
+		{
+			this.useNetworkCounts(countsKey, counts);
+			countInitialized = true;
+			return;
+		}
+		
+		//Use the counts of attributes other clouds have counted, count the rest
+		NetworkCounts[] shards = new NetworkCounts[attributeNames.size()];
+		List<String> newAttributes = new ArrayList<String>();
+		for (int i = 0; i < attributeNames.size(); i++)
+		{
+			shards[i] = networkParams.getAttributeCounts(attributeNames.get(i));
+			if (shards[i] == null)
+				newAttributes.add(attributeNames.get(i));
+		}
+		
+		if (!newAttributes.isEmpty())
+		{
+			this.countAttributes(newAttributes, tokenizer, dictionary);
+			for (int i = 0; i < attributeNames.size(); i++)
+				shards[i] = networkParams.getAttributeCounts(attributeNames.get(i));
+		}
+		
+		//Add up the attributes, a single attribute is used as it is
+		this.wordPostings = new WordPostings[attributeNames.size()];
+		this.wordMatrices = new NodeWordMatrix[attributeNames.size()];
+		for (int i = 0; i < shards.length; i++)
+		{
+			wordPostings[i] = shards[i].getPostings()[0];
+			wordMatrices[i] = shards[i].getMatrices()[0];
+			if (shards.length == 1)
+				networkCounts = shards[i].getWordCounts();
+			else
+				networkCounts.addAll(shards[i].getWordCounts());
+		}
+		
+		networkNumNodes = networkNodes.size() * attributeNames.size();
+		postingsComplete = true;
+		
+		//Lend the counts to later clouds
+		sharedCounts = new NetworkCounts(networkCounts, networkPairCounts, 
+				wordPostings, wordMatrices, networkNumNodes);
+		sharedCountsKey = countsKey;
+		networkParams.addNetworkCounts(countsKey, sharedCounts);
+		
+		countInitialized = true;
+	}
+	
+	/**
+	 * Sets the network counts of this cloud to counts borrowed from
+	 * networkParams.
+	 */
+	private void useNetworkCounts(String countsKey, NetworkCounts counts)
+	{
+		sharedCounts = counts;
+		sharedCountsKey = countsKey;
+		networkCounts = counts.getWordCounts();
+		networkPairCounts = counts.getPairCounts();
+		wordPostings = counts.getPostings();
+		wordMatrices = counts.getMatrices();
+		networkNumNodes = counts.getNumNodes();
+		postingsComplete = true;
+	}
+	
+	/**
+	 * Counts every network node for each of the given attributes and stores
+	 * the counts of each attribute in networkParams.
+	 * @param List - names of the attributes to count.
+	 * @param WordTokenizer - tokenizer built from the current delimiters.
+	 * @param WordDictionary - the shared dictionary, WordDictionary.getInstance().
+	 */
+	private void countAttributes(List<String> attributes, WordTokenizer tokenizer, 
+			WordDictionary dictionary)
+	{
+		List<String> networkNodes = networkParams.getNetworkNodes();
 		
 		//Iterate to retrieve CyNodes
-		Iterator<String> iter = networkNodes.iterator();
-		while(iter.hasNext())
+		List<CyNode> nodes = new ArrayList<CyNode>(networkNodes.size());
+		int[] nodePositions = new int[networkNodes.size()];
+		for (int position = 0; position < networkNodes.size(); position++)
 		{
-			String curNodeID = (String)iter.next();
+			String curNodeID = networkNodes.get(position);
 			
 			CyNode curNode = Cytoscape.getCyNode(curNodeID);
 			
@@ -285,70 +384,39 @@ public class CloudParameters implements Comparable<CloudParameters>
 				JOptionPane.showMessageDialog(desktop, "Node no longer exists: " + curNodeID);
 				continue;
 			}
-			
-			for (int i = 0; i < attributeNames.size(); i++)
-			{
-				String curAttribute = attributeNames.get(i);
-				String nodeValue = this.getNodeAttributeVal(curNode, curAttribute);
-			
-				//String nodeValue = this.getNodeAttributeVal(curNode);
-				if (nodeValue == null) // problem with nodes or attributes
-					continue;
-			
-				List<String> wordSet = this.processNodeString(nodeValue);
-				String lastWord = ""; //Used for calculating pair counts
-	        
-				//Iterate through all words
-				Iterator<String> wordIter = wordSet.iterator();
-				while(wordIter.hasNext())
-				{
-					String curWord = wordIter.next();
-				
-					//Check filters
-					WordFilter filter = networkParams.getFilter();
-					if (!filter.contains(curWord))
-					{
-						//If this word has not been encountered, or not encountered
-						//in this node, add it to our mappings and counts
-						HashMap<String, List<String>> curMapping = this.getStringNodeMapping();
-				
-						//If we have not encountered this word, add it to the mapping
-						if (!curMapping.containsKey(curWord))
-						{
-							curMapping.put(curWord, new ArrayList<String>());
-							networkCounts.put(curWord, 0);
-						}
-					
-						//Add node to mapping, update counts
-						curMapping.get(curWord).add(curNode.toString());
-						Integer num = networkCounts.get(curWord);
-						num = num + 1;
-						networkCounts.put(curWord, num);
-					
-					
-						//Add to pair counts
-						if (!lastWord.equals(""))
-						{
-							Integer curPairCount = 0;
-							String pairName = lastWord + controlChar + curWord;
-						
-							if (networkPairCounts.containsKey(pairName))
-								curPairCount = networkPairCounts.get(pairName);
-						
-							curPairCount = curPairCount + 1;
-							networkPairCounts.put(pairName, curPairCount);
-						}
-					
-						//Update curWord to be LastWord
-						lastWord = curWord;
-					
-					}//end filter if
-				}// word iterator
-			}//end attribute iterator
-		}//end node iterator
+			nodePositions[nodes.size()] = position;
+			nodes.add(curNode);
+		}
 		
-		networkNumNodes = networkNodes.size() * attributeNames.size();
-		countInitialized = true;
+		//Find the words of every node, tokenizing on all processors
+		int[][] nodeWordIds = this.getNetworkWordIds(nodes, attributes, tokenizer, dictionary);
+		
+		//Count on all processors
+		NetworkCounter counter = new NetworkCounter(nodeWordIds, nodePositions, attributes.size(), 
+				networkParams.getFilter(), dictionary);
+		counter.run();
+		
+		for (int i = 0; i < attributes.size(); i++)
+		{
+			NetworkCounts counts = new NetworkCounts(counter.getWordCounts(i), null, 
+					new WordPostings[] {counter.getPostings(i)}, 
+					new NodeWordMatrix[] {counter.getMatrix(i)}, networkNodes.size());
+			networkParams.putAttributeCounts(attributes.get(i), counts);
+		}
+	}
+	
+	/**
+	 * Gives the network counts this cloud borrowed back to networkParams.
+	 * Called when the counts are remade and when the cloud is removed.
+	 */
+	public void releaseNetworkCounts()
+	{
+		if (sharedCounts == null)
+			return;
+		
+		networkParams.releaseNetworkCounts(sharedCountsKey, sharedCounts);
+		sharedCounts = null;
+		sharedCountsKey = null;
 	}
 	
 	
@@ -362,17 +430,243 @@ public class CloudParameters implements Comparable<CloudParameters>
 		if (selInitialized)
 			return;
 		
-		//Initialize if needed
+		//Initialize if needed, old selected counts are then out of date
 		if (!countInitialized)
+		{
 			this.initializeNetworkCounts();
+			countedPositions = null;
+		}
+		
+		//Only count the nodes that were added or removed if that is less work
+		if (this.updateSelectedDelta())
+		{
+			this.finishSelectedCounts();
+			return;
+		}
 		
 		//Clear old counts
-		this.selectedCounts = new HashMap<String, Integer>();
-		this.selectedPairCounts = new HashMap<String, Integer>();
+		this.selectedCounts = new IntIntHashMap();
+		this.selectedPairCounts = null;
 		
 		
 		List<String> selectedNodes = this.getSelectedNodes();
 		
+		//Selections are counted by adding up their rows in the network
+		//matrices without reading values
+		int[] positions = this.getSelectionPositions(selectedNodes);
+		if (positions != null)
+			this.countSelectedRows(positions, selectedCounts, null);
+		else
+			this.countNodes(selectedNodes, selectedCounts, null);
+		
+		countedPositions = this.toPositionSet(positions);
+		this.finishSelectedCounts();
+	}
+	
+	/**
+	 * Sets the selected counts to counts made outside this cloud, as by a
+	 * SelectionCounter counting many clouds at once.
+	 * @param IntIntHashMap - count of each word in the selected nodes.
+	 */
+	public void useSelectedCounts(IntIntHashMap counts)
+	{
+		this.selectedCounts = counts;
+		this.selectedPairCounts = null;
+		countedPositions = this.toPositionSet(this.getSelectionPositions(this.getSelectedNodes()));
+		this.finishSelectedCounts();
+	}
+	
+	/**
+	 * Brings the selected counts up to date with the selected nodes by
+	 * adding the matrix rows of the nodes that were added to the selection
+	 * since it was last counted and taking off those of the nodes that were
+	 * removed.  The new selection is read once and compared with the set of
+	 * positions that were counted, so only the changed nodes are counted.
+	 * Returns false, leaving the counts alone, when they must be counted
+	 * from scratch instead: when there are no counts to update, a node is
+	 * not in the network matrices or is selected twice, or when more nodes
+	 * changed than are now selected.
+	 * @return true if the selected counts were updated.
+	 */
+	private boolean updateSelectedDelta()
+	{
+		if (countedPositions == null || !postingsComplete)
+			return false;
+		
+		List<String> selectedNodes = this.getSelectedNodes();
+		BitSet newPositions = new BitSet(countedPositions.size());
+		int[] added = new int[selectedNodes.size()];
+		int numAdded = 0;
+		for (int i = 0; i < selectedNodes.size(); i++)
+		{
+			int[] positions = networkParams.getNodePositions(selectedNodes.get(i));
+			if (positions == null || newPositions.get(positions[0]))
+				return false;
+			
+			newPositions.set(positions[0]);
+			if (!countedPositions.get(positions[0]))
+				added[numAdded++] = positions[0];
+		}
+		
+		//Counted positions that are no longer selected
+		BitSet removedPositions = (BitSet)countedPositions.clone();
+		removedPositions.andNot(newPositions);
+		int numRemoved = removedPositions.cardinality();
+		if (numAdded + numRemoved >= selectedNodes.size())
+			return false;
+		
+		int[] removed = new int[numRemoved];
+		int r = 0;
+		for (int p = removedPositions.nextSetBit(0); p >= 0; p = removedPositions.nextSetBit(p + 1))
+			removed[r++] = p;
+		int[] addedPositions = new int[numAdded];
+		System.arraycopy(added, 0, addedPositions, 0, numAdded);
+		
+		for (int i = 0; i < wordMatrices.length; i++)
+		{
+			wordMatrices[i].multiply(addedPositions, selectedCounts, selectedPairCounts);
+			wordMatrices[i].subtract(removed, selectedCounts, selectedPairCounts);
+		}
+		countedPositions = newPositions;
+		return true;
+	}
+	
+	/**
+	 * Returns the set of network positions in a selection, or null when
+	 * there are no positions or a position is listed twice, so the counts
+	 * made from them can not be updated node by node.
+	 */
+	private BitSet toPositionSet(int[] positions)
+	{
+		if (positions == null)
+			return null;
+		
+		BitSet positionSet = new BitSet();
+		for (int i = 0; i < positions.length; i++)
+		{
+			if (positionSet.get(positions[i]))
+				return null;
+			positionSet.set(positions[i]);
+		}
+		return positionSet;
+	}
+	
+	/**
+	 * Sets the values that follow from new selected counts.
+	 */
+	private void finishSelectedCounts()
+	{
+		//selectedNumNodes = selectedNodes.size();
+		selectedNumNodes = this.getSelectedNodes().size() * attributeNames.size();
+		
+		calculateWeights();
+		
+		selInitialized = true;
+	}
+	
+	/**
+	 * Returns a summary of the network counts of this cloud, counting them
+	 * first if needed.  The summary holds copies, so it can be added to.
+	 * @return CountSummary - word, pair and node counts of the network.
+	 */
+	public CountSummary getNetworkSummary()
+	{
+		if (!countInitialized)
+			this.initializeNetworkCounts();
+		
+		IntIntHashMap words = new IntIntHashMap(networkCounts.size());
+		words.addAll(networkCounts);
+		LongIntHashMap pairs = new LongIntHashMap();
+		pairs.addAll(this.getNetworkPairTable());
+		return new CountSummary(words, pairs, this.getNetworkNumNodes());
+	}
+	
+	/**
+	 * Returns a summary of the selected counts of this cloud, counting them
+	 * first if needed.  The summary holds copies, so it can be added to.
+	 * @return CountSummary - word, pair and node counts of the selection.
+	 */
+	public CountSummary getSelectedSummary()
+	{
+		if (!selInitialized)
+			this.updateSelectedCounts();
+		
+		IntIntHashMap words = new IntIntHashMap(selectedCounts.size());
+		words.addAll(selectedCounts);
+		LongIntHashMap pairs = new LongIntHashMap();
+		pairs.addAll(this.getSelectedPairTable());
+		return new CountSummary(words, pairs, this.getSelectedNumNodes());
+	}
+	
+	/**
+	 * Sets the network and selected counts of this cloud to summaries made
+	 * elsewhere, such as by merging the summaries of separately counted
+	 * shards of a network, so the ratios and clustering are calculated from
+	 * them.  The summaries must not be changed afterwards.
+	 * @param CountSummary - counts of the whole network.
+	 * @param CountSummary - counts of the selected nodes.
+	 */
+	public void useSummaries(CountSummary network, CountSummary selected)
+	{
+		this.releaseNetworkCounts();
+		networkCounts = network.getWordCounts();
+		networkPairCounts = network.getPairCounts();
+		networkNumNodes = network.getNumNodes();
+		wordPostings = new WordPostings[0];
+		wordMatrices = new NodeWordMatrix[0];
+		postingsComplete = false;
+		countInitialized = true;
+		
+		selectedCounts = selected.getWordCounts();
+		selectedPairCounts = selected.getPairCounts();
+		countedPositions = null;
+		selectedNumNodes = selected.getNumNodes();
+		calculateWeights();
+		selInitialized = true;
+		ratiosInitialized = false;
+	}
+	
+	/**
+	 * Returns the network position of each selected node, so the selection
+	 * can be counted from the network matrices, or null when the nodes must
+	 * be read instead.  The network counts are initialized if needed.
+	 * @return int[] - positions of the selected nodes, or null.
+	 */
+	public int[] getSelectedPositions()
+	{
+		if (!countInitialized)
+			this.initializeNetworkCounts();
+		
+		return this.getSelectionPositions(this.getSelectedNodes());
+	}
+	
+	/**
+	 * Returns the network matrix of each attribute of this cloud.  Clouds
+	 * borrowing the same network counts return the same array.  The
+	 * matrices must not be changed.
+	 * @return NodeWordMatrix[] - counted words of each node, for each attribute.
+	 */
+	public NodeWordMatrix[] getWordMatrices()
+	{
+		return wordMatrices;
+	}
+	
+	/**
+	 * Adds the words and word pairs of each node to the given counts,
+	 * reading the words from the token cache or the node attributes.
+	 * @param List - IDs of the nodes.
+	 * @param IntIntHashMap - counts to add each word to, or null.
+	 * @param LongIntHashMap - counts to add each word pair to, or null.
+	 */
+	private void countNodes(List<String> selectedNodes, IntIntHashMap wordCounts, 
+			LongIntHashMap pairCounts)
+	{
+		WordTokenizer tokenizer = networkParams.getDelimiter().getTokenizer();
+		WordDictionary dictionary = WordDictionary.getInstance();
+		WordIdCollector wordSet = new WordIdCollector(dictionary);
+		HashMap<List<String>, int[]> valueTokens = new HashMap<List<String>, int[]>();
+		networkParams.getTokenCache().checkVersion(tokenizer.getVersion());
+		
 		//Iterate to retrieve Cynodes
 		Iterator<String> iter = selectedNodes.iterator();
 		while(iter.hasNext())
@@ -392,66 +686,120 @@ public class CloudParameters implements Comparable<CloudParameters>
 			for (int i = 0; i < attributeNames.size(); i++)
 			{
 				String curAttribute = attributeNames.get(i);
-				String nodeValue = this.getNodeAttributeVal(curNode, curAttribute);
+				int[] wordIds = this.getNodeWordIds(curNode, curAttribute, tokenizer, 
+						wordSet, valueTokens);
 			
-				//String nodeValue = this.getNodeAttributeVal(curNode);
-			
-				if (nodeValue == null) // problem with nodes or attributes
+				if (wordIds == null) // problem with nodes or attributes
 					continue;
-			
-				List<String> wordSet = this.processNodeString(nodeValue);
-				String lastWord = ""; //Used for calculating pair counts
+				int lastWordId = -1; //Used for calculating pair counts
 	        
 				//Iterate through all words
-				Iterator<String> wordIter = wordSet.iterator();
-				while(wordIter.hasNext())
+				for (int j = 0; j < wordIds.length; j++)
 				{
-					String curWord = wordIter.next();
+					int curWordId = wordIds[j];
+					String curWord = dictionary.getWord(curWordId);
 				
 					//Check filters
 					WordFilter filter = networkParams.getFilter();
 					if (!filter.contains(curWord))
 					{
 						//Add to selected Counts
-					
-						Integer curCount = 0; 
-					
-						if (selectedCounts.containsKey(curWord))
-							curCount = selectedCounts.get(curWord);
-					
-						//Update Count
-						curCount = curCount + 1;
-					
-						//Add updated count to HashMap
-						selectedCounts.put(curWord, curCount);
+						if (wordCounts != null)
+							wordCounts.add(curWordId, 1);
 					
 						//Add to pair counts
-						if (!lastWord.equals(""))
-						{
-							Integer curPairCount = 0;
-							String pairName = lastWord + controlChar + curWord;
-						
-							if (selectedPairCounts.containsKey(pairName))
-								curPairCount = selectedPairCounts.get(pairName);
-						
-							curPairCount = curPairCount + 1;
-							selectedPairCounts.put(pairName, curPairCount);
-						}
+						if (lastWordId >= 0 && pairCounts != null)
+							pairCounts.add(LongIntHashMap.pairKey(lastWordId, curWordId), 1);
 					
 						//Update curWord to be LastWord
-						lastWord = curWord;
+						lastWordId = curWordId;
 					
 					}//end filter if
 				}// word iterator
 			}// end attribute list
 		}//end node iterator
+	}
+	
+	/**
+	 * Adds the words and word pairs of the selected nodes to the given
+	 * counts by adding up their rows in the network matrix of each attribute.
+	 * @param int[] - network positions of the selected nodes.
+	 * @param IntIntHashMap - counts to add each word to, or null.
+	 * @param LongIntHashMap - counts to add each word pair to, or null.
+	 */
+	private void countSelectedRows(int[] positions, IntIntHashMap wordCounts, 
+			LongIntHashMap pairCounts)
+	{
+		for (int i = 0; i < wordMatrices.length; i++)
+			wordMatrices[i].multiply(positions, wordCounts, pairCounts);
+	}
+	
+	/**
+	 * Counts the word pairs of the whole network, which are only needed for
+	 * clustering.  The pairs are counted from the network matrices and
+	 * shared with the other clouds that borrowed the same network counts.
+	 */
+	private void countNetworkPairs()
+	{
+		if (sharedCounts != null && sharedCounts.getPairCounts() != null)
+		{
+			networkPairCounts = sharedCounts.getPairCounts();
+			return;
+		}
 		
-		//selectedNumNodes = selectedNodes.size();
-		selectedNumNodes = selectedNodes.size() * attributeNames.size();
+		LongIntHashMap pairCounts = new LongIntHashMap();
+		if (postingsComplete)
+		{
+			for (int i = 0; i < wordMatrices.length; i++)
+				wordMatrices[i].countPairs(pairCounts);
+		}
+		else
+			this.countNodes(networkParams.getNetworkNodes(), null, pairCounts);
 		
-		calculateWeights();
+		networkPairCounts = pairCounts;
+		if (sharedCounts != null)
+			sharedCounts.setPairCounts(pairCounts);
+	}
+	
+	/**
+	 * Counts the word pairs of the selected nodes, which are only needed for
+	 * clustering.
+	 */
+	private void countSelectedPairs()
+	{
+		LongIntHashMap pairCounts = new LongIntHashMap();
+		List<String> selectedNodes = this.getSelectedNodes();
+		int[] positions = this.getSelectionPositions(selectedNodes);
+		if (positions != null)
+			this.countSelectedRows(positions, null, pairCounts);
+		else
+			this.countNodes(selectedNodes, null, pairCounts);
 		
-		selInitialized = true;
+		selectedPairCounts = pairCounts;
+	}
+	
+	/**
+	 * Returns the network position of each selected node, or null when the
+	 * nodes must be read instead: when the network matrices do not cover
+	 * this cloud's attributes, or when a selected node is missing from the
+	 * network.
+	 * @param List - IDs of the selected nodes.
+	 * @return int[] - positions of the selected nodes, or null.
+	 */
+	private int[] getSelectionPositions(List<String> selectedNodes)
+	{
+		if (!postingsComplete)
+			return null;
+		
+		int[] selection = new int[selectedNodes.size()];
+		for (int i = 0; i < selectedNodes.size(); i++)
+		{
+			int[] positions = networkParams.getNodePositions(selectedNodes.get(i));
+			if (positions == null)
+				return null;
+			selection[i] = positions[0];
+		}
+		return selection;
 	}
 	
 	/**
@@ -465,15 +813,14 @@ public class CloudParameters implements Comparable<CloudParameters>
 		Double total = 0.0;
 		int count = 0;
 		
-		//Get all words appearing in selected nodes
-		Set<String> words = selectedCounts.keySet();
-		
-		//Iterate through to calculate ratios
-		Iterator<String> iter = words.iterator();
+		//Iterate through all words appearing in selected nodes to calculate ratios
 		boolean initialized = false;
-		while (iter.hasNext())
+		for (int slot = 0; slot < selectedCounts.capacity(); slot++)
 		{
-			String curWord = (String)iter.next();
+			if (!selectedCounts.isUsed(slot))
+				continue;
+			
+			int curWord = selectedCounts.keyAt(slot);
 			
 			/* Ratio: (selCount/selTotal)/((netCount/netTotal)^netWeightFactor)
 			 * But, to avoid underflow from small probabilities we calculate it as follows:
@@ -482,8 +829,8 @@ public class CloudParameters implements Comparable<CloudParameters>
 			 * different algebra.
 			 */
 			Integer selTotal = this.getSelectedNumNodes();
-			Integer selCount = selectedCounts.get(curWord);
-			Integer netCount = networkCounts.get(curWord);
+			int selCount = selectedCounts.valueAt(slot);
+			int netCount = networkCounts.get(curWord);
 			Double newNetCount = Math.pow(netCount, 0.0);
 			Integer netTotal = this.getNetworkNumNodes();
 			Double newNetTotal = Math.pow(netTotal, 0.0);
@@ -534,23 +881,20 @@ public class CloudParameters implements Comparable<CloudParameters>
 			this.calculateWeights();
 		
 		//SINGLE COUNTS
-		//Clear old counts
-		this.ratios = new HashMap<String, Double>();
+		//Clear old counts, one ratio for each selected word in ID order
+		this.ratioIds = selectedCounts.sortedKeys();
+		this.ratioValues = new double[ratioIds.length];
 		
 		Double curMin = 0.0;
 		Double curMax = 0.0;
 		Double total = 0.0;
 		int count = 0;
 		
-		//Get all words appearing in selected nodes
-		Set<String> words = selectedCounts.keySet();
-		
-		//Iterate through to calculate ratios
-		Iterator<String> iter = words.iterator();
+		//Iterate through all words appearing in selected nodes to calculate ratios
 		boolean initialized = false;
-		while (iter.hasNext())
+		for (int i = 0; i < ratioIds.length; i++)
 		{
-			String curWord = (String)iter.next();
+			int curWord = ratioIds[i];
 			
 			/* Ratio: (selCount/selTotal)/((netCount/netTotal)^netWeightFactor)
 			 * But, to avoid underflow from small probabilities we calculate it as follows:
@@ -559,8 +903,8 @@ public class CloudParameters implements Comparable<CloudParameters>
 			 * different algebra.
 			 */
 			Integer selTotal = this.getSelectedNumNodes();
-			Integer selCount = selectedCounts.get(curWord);
-			Integer netCount = networkCounts.get(curWord);
+			int selCount = selectedCounts.get(curWord);
+			int netCount = networkCounts.get(curWord);
 			Double newNetCount = Math.pow(netCount, netWeightFactor);
 			Integer netTotal = this.getNetworkNumNodes();
 			Double newNetTotal = Math.pow(netTotal, netWeightFactor);
@@ -569,7 +913,7 @@ public class CloudParameters implements Comparable<CloudParameters>
 			Double denominator = selTotal * newNetCount;
 			Double ratio = numerator/denominator;
 			
-			ratios.put(curWord, ratio);
+			ratioValues[i] = ratio;
 			
 			total = total + ratio;
 			count = count + 1;
@@ -593,18 +937,34 @@ public class CloudParameters implements Comparable<CloudParameters>
 		this.setMinRatio(curMin);
 		this.setMeanRatio(total/count);
 		
-		//PAIR COUNTS
-		//Clear old counts
-		this.pairRatios = new HashMap<String, Double>();
+		//Pair ratios are calculated when clustering needs them
+		this.pairRatioIndex = null;
+		this.pairRatioValues = null;
 		
-		//Get all word pairs appearing in selected nodes
-		words = selectedPairCounts.keySet();
+		ratiosInitialized = true;
+	}
+	
+	/**
+	 * Calculates the ratio of every word pair in the selected nodes, counting
+	 * the pairs first if they have not been counted.
+	 */
+	private void calculatePairRatios()
+	{
+		LongIntHashMap selPairCounts = this.getSelectedPairTable();
+		LongIntHashMap netPairCounts = this.getNetworkPairTable();
+		
+		//Clear old counts, each ratio is stored at the index of its pair key
+		this.pairRatioIndex = new LongIntHashMap(selPairCounts.size());
+		this.pairRatioValues = new double[selPairCounts.size()];
+		int numPairs = 0;
 		
-		//Iterate through to calculate ratios
-		Iterator<String> pairIter = words.iterator();
-		while (pairIter.hasNext())
+		//Iterate through all word pairs appearing in selected nodes
+		for (int slot = 0; slot < selPairCounts.capacity(); slot++)
 		{
-			String curWord = (String)pairIter.next();
+			if (!selPairCounts.isUsed(slot))
+				continue;
+			
+			long curPair = selPairCounts.keyAt(slot);
 			
 			/* Ratio: (selCount/selTotal)/((netCount/netTotal)^netWeightFactor)
 			 * But, to avoid underflow from small probabilities we calculate it as follows:
@@ -613,8 +973,8 @@ public class CloudParameters implements Comparable<CloudParameters>
 			 * different algebra.
 			 */
 			Integer selTotal = this.getSelectedNumNodes();
-			Integer selPairCount = selectedPairCounts.get(curWord);
-			Integer netPairCount = networkPairCounts.get(curWord);
+			int selPairCount = selPairCounts.valueAt(slot);
+			int netPairCount = netPairCounts.get(curPair);
 			Double newNetCount = Math.pow(netPairCount, netWeightFactor);
 			Integer netTotal = this.getNetworkNumNodes();
 			Double newNetTotal = Math.pow(netTotal, netWeightFactor);
@@ -623,9 +983,10 @@ public class CloudParameters implements Comparable<CloudParameters>
 			Double denominator = selTotal * newNetCount;
 			Double ratio = numerator/denominator;
 			
-			pairRatios.put(curWord, ratio);
+			pairRatioValues[numPairs] = ratio;
+			pairRatioIndex.put(curPair, numPairs + 1);
+			numPairs++;
 		}
-		ratiosInitialized = true;
 	}
 	
 	/**
@@ -643,16 +1004,15 @@ public class CloudParameters implements Comparable<CloudParameters>
 		
 		if (displayStyle.equals(CloudDisplayStyles.NO_CLUSTERING))
 		{
-			Set<String> words = ratios.keySet();
-			Iterator<String> iter = words.iterator();
-			while(iter.hasNext())
+			WordDictionary dictionary = WordDictionary.getInstance();
+			for (int i = 0; i < ratioIds.length; i++)
 			{
-				String curWord = (String)iter.next();
+				int curWord = ratioIds[i];
 				Integer fontSize = calculateFontSize(curWord);
-				CloudWordInfo curInfo = new CloudWordInfo(curWord, fontSize);
+				CloudWordInfo curInfo = new CloudWordInfo(dictionary.getWord(curWord), fontSize);
 				curInfo.setCloudParameters(this);
 				cloudWords.add(curInfo);
-			}//end while loop
+			}//end for loop
 			
 			//Sort cloudWords in order by fontsize
 			Collections.sort(cloudWords);
@@ -676,12 +1036,21 @@ public class CloudParameters implements Comparable<CloudParameters>
 	 * @return Integer - the calculated font size for the specified word.
 	 */
 	public Integer calculateFontSize(String aWord)
+	{
+		return this.calculateFontSize(WordDictionary.getInstance().findId(aWord));
+	}
+	
+	/**
+	 * Calculates the font for a word given its ID in the WordDictionary.
+	 * @param int - ID of the word.
+	 * @return Integer - the calculated font size for the specified word.
+	 */
+	public Integer calculateFontSize(int wordId)
 	{
 		//Sanity check
-		if (!ratios.containsKey(aWord))
+		double ratio = this.getRatio(wordId);
+		if (Double.isNaN(ratio))
 			return 0;
-		
-		Double ratio = ratios.get(aWord);
 				
 		//Zeroed mapping
 		//Get zeroed values for calculations
@@ -959,21 +1328,20 @@ public class CloudParameters implements Comparable<CloudParameters>
 	}
 	
 	/**
-	 * This method takes in the ID of a node and returns the string that is associated
-	 * with that node and the current attribute of this CloudParameters.
+	 * This method takes in the ID of a node and returns the strings that are associated
+	 * with that node and the given attribute.  A string attribute gives a single
+	 * string and a list attribute gives each of its string elements, which are
+	 * tokenized separately rather than being joined together.
 	 * @param CyNode - node we are interested in 
 	 * @param String - name of the attribute we are interested in
-	 * @return String - value stored in the current attribute for the given node.
+	 * @return List - strings stored in the attribute for the given node, or null.
 	 */
-	private String getNodeAttributeVal(CyNode curNode, String attributeName)
+	private List<String> getNodeAttributeVal(CyNode curNode, String attributeName)
 	{
-		//Retrieve value based on attribute
-		String nodeValue = "";
-		
 		//if we should use the ID
 		if (attributeName.equals("nodeID"))
 		{
-			nodeValue = curNode.toString();
+			return Collections.singletonList(curNode.toString());
 		}
 		
 		//Use a different attribute
@@ -983,7 +1351,12 @@ public class CloudParameters implements Comparable<CloudParameters>
 			
 			if (cyNodeAttrs.getType(attributeName)== CyAttributes.TYPE_STRING)
 			{
-				nodeValue = cyNodeAttrs.getStringAttribute(curNode.getIdentifier(), attributeName);
+				String nodeValue = cyNodeAttrs.getStringAttribute(curNode.getIdentifier(), attributeName);
+				
+				if (nodeValue == null)
+					return null;
+				
+				return Collections.singletonList(nodeValue);
 			}
 			
 			else if (cyNodeAttrs.getType(attributeName) == CyAttributes.TYPE_SIMPLE_LIST)
@@ -995,16 +1368,14 @@ public class CloudParameters implements Comparable<CloudParameters>
 				
 				else
 				{
+					List<String> nodeValues = new ArrayList<String>(attribute.size());
 					for (Iterator iter = attribute.iterator(); iter.hasNext();)
 					{
 						Object curObj = iter.next();
 						if (curObj instanceof String)
-						{
-							//Turn list into space separated string
-							String curObjString = (String)curObj;
-							nodeValue = nodeValue + curObjString + " ";
-						}//
+							nodeValues.add((String)curObj);
 					}
+					return nodeValues;
 				}
 			}
 			else
@@ -1018,48 +1389,222 @@ public class CloudParameters implements Comparable<CloudParameters>
 				return null;
 			}//end else
 		}//end else
-		
-		return nodeValue;
 	}//end method
 	
 	
 	/**
-	 * This method takes in a string from a node and processes it to lower case, removes
-	 * punctuation and separates the words into a non repeated list.
-	 * @param String from a node that we are processing.
-	 * @return Set of distinct words.
+	 * Returns the distinct word IDs in the value of a node attribute.  They are
+	 * taken from the network's token cache when possible, and otherwise the value
+	 * is fetched and only tokenized if no other node in this pass had the same value.
+	 * @param CyNode - node we are interested in.
+	 * @param String - name of the attribute we are interested in.
+	 * @param WordTokenizer - tokenizer built from the current delimiters.
+	 * @param WordIdCollector - reusable collector for newly tokenized values.
+	 * @param HashMap - word IDs of each value tokenized in this pass.
+	 * @return int[] - word IDs in order of first appearance, or null if the
+	 * value could not be retrieved.
 	 */
-	private List<String> processNodeString(String nodeValue)
+	private int[] getNodeWordIds(CyNode curNode, String attributeName, 
+			WordTokenizer tokenizer, WordIdCollector wordSet, 
+			HashMap<List<String>, int[]> valueTokens)
 	{
-		//Only deal with lower case
-		nodeValue = nodeValue.toLowerCase();
+		NodeTokenCache cache = networkParams.getTokenCache();
+		int[] wordIds = cache.get(curNode.getIdentifier(), attributeName);
 		
-		//replace all punctuation with white spaces except ' and -
-		//nodeValue = nodeValue.replaceAll("[[\\p{Punct}] && [^'-]]", " ");
-		String controlString = Character.toString(controlChar);
+		if (wordIds == null)
+		{
+			List<String> nodeValues = this.getNodeAttributeVal(curNode, attributeName);
+			
+			if (nodeValues == null)
+				return null;
+			
+			wordIds = valueTokens.get(nodeValues);
+			if (wordIds == null)
+			{
+				this.processNodeString(nodeValues, tokenizer, wordSet);
+				wordIds = wordSet.toArray();
+				valueTokens.put(nodeValues, wordIds);
+			}
+			cache.put(curNode.getIdentifier(), attributeName, wordIds);
+		}
+		
+		return wordIds;
+	}
+	
+	/**
+	 * Returns the distinct word IDs of the given attributes of every given
+	 * node, in node order and then attribute order.  Cached words are used where
+	 * possible.  The remaining values are fetched on this thread and then
+	 * tokenized together by a ParallelTokenizer before being cached.
+	 * @param List - nodes we are interested in.
+	 * @param List - names of the attributes.
+	 * @param WordTokenizer - tokenizer built from the current delimiters.
+	 * @param WordDictionary - the shared dictionary, WordDictionary.getInstance().
+	 * @return int[][] - word IDs for each node attribute, null where the
+	 * value could not be retrieved.
+	 */
+	private int[][] getNetworkWordIds(List<CyNode> nodes, List<String> attributes, 
+			WordTokenizer tokenizer, WordDictionary dictionary)
+	{
+		NodeTokenCache cache = networkParams.getTokenCache();
+		ParallelTokenizer batch = new ParallelTokenizer(tokenizer, dictionary);
+		int numAttributes = attributes.size();
+		int[][] nodeWordIds = new int[nodes.size() * numAttributes][];
+		int[] batchIndex = new int[nodeWordIds.length];
+		
+		for (int n = 0; n < nodes.size(); n++)
+		{
+			String curNodeID = nodes.get(n).getIdentifier();
+			
+			for (int i = 0; i < numAttributes; i++)
+			{
+				int index = n * numAttributes + i;
+				String curAttribute = attributes.get(i);
+				batchIndex[index] = -1;
+				
+				int[] wordIds = cache.get(curNodeID, curAttribute);
+				if (wordIds == null)
+				{
+					List<String> nodeValues = this.getNodeAttributeVal(nodes.get(n), curAttribute);
+					
+					if (nodeValues == null)
+						continue;
+					
+					//Leave it for the batch, which tokenizes equal values once
+					batchIndex[index] = batch.add(nodeValues);
+					continue;
+				}
+				nodeWordIds[index] = wordIds;
+			}
+		}
 		
-		//Remove all standard delimiters and replace with controlChar
-		WordDelimiters delims = this.getNetworkParams().getDelimiter();
-		nodeValue = nodeValue.replaceAll(delims.getRegex(),controlString);
-        
-		//Remove all user stated delimiters and replace with controlChar
-		for (Iterator<String> iter = delims.getUserDelims().iterator(); iter.hasNext();)
+		batch.run();
+		
+		for (int index = 0; index < nodeWordIds.length; index++)
 		{
-			String userDelim = iter.next();
-			nodeValue = nodeValue.replaceAll(userDelim, controlString);
+			if (batchIndex[index] < 0)
+				continue;
+			
+			int[] wordIds = batch.getWordIds(batchIndex[index]);
+			cache.put(nodes.get(index / numAttributes).getIdentifier(), 
+					attributes.get(index % numAttributes), wordIds);
+			nodeWordIds[index] = wordIds;
 		}
 		
-        //Separate into non repeating set of words
-		List<String> wordSet = new ArrayList<String>();
-		StringTokenizer token = new StringTokenizer(nodeValue, controlString);
-        while (token.hasMoreTokens())
-        {
-        	String a = token.nextToken();
-        	if (!wordSet.contains(a))
-        		wordSet.add(a);
-        }
-        
-        return wordSet;
+		return nodeWordIds;
+	}
+	
+	/**
+	 * This method takes in the strings from a node and processes them to lower case, removes
+	 * punctuation and separates the words into a non repeated list.  The words are
+	 * collected as IDs in the network's word dictionary.
+	 * @param List of strings from a node that we are processing.
+	 * @param WordTokenizer - tokenizer built from the current delimiters.
+	 * @param WordIdCollector - emptied and filled with the distinct words.
+	 */
+	private void processNodeString(List<String> nodeValues, WordTokenizer tokenizer, WordIdCollector wordSet)
+	{
+		wordSet.clear();
+		tokenizer.tokenize(nodeValues, wordSet);
+	}
+	
+	/**
+	 * Returns a copy of the scores of a list of word IDs as a map keyed by
+	 * word.
+	 */
+	private static HashMap<String, Double> toWordKeys(int[] ids, double[] scores)
+	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		HashMap<String, Double> wordMap = new HashMap<String, Double>();
+		for (int i = 0; i < ids.length; i++)
+			wordMap.put(dictionary.getWord(ids[i]), scores[i]);
+		return wordMap;
+	}
+	
+	/**
+	 * Returns a copy of a count table keyed by word ID as a map keyed by word.
+	 */
+	private static HashMap<String, Integer> toWordKeys(IntIntHashMap counts)
+	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		HashMap<String, Integer> wordMap = new HashMap<String, Integer>();
+		for (int slot = 0; slot < counts.capacity(); slot++)
+		{
+			if (counts.isUsed(slot))
+				wordMap.put(dictionary.getWord(counts.keyAt(slot)), counts.valueAt(slot));
+		}
+		return wordMap;
+	}
+	
+	/**
+	 * Returns a count table keyed by word ID built from a map keyed by word,
+	 * adding any new words to the WordDictionary.
+	 */
+	private static IntIntHashMap toIdCounts(HashMap<String, Integer> map)
+	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		IntIntHashMap counts = new IntIntHashMap(map.size());
+		for (Iterator<String> iter = map.keySet().iterator(); iter.hasNext();)
+		{
+			String curWord = iter.next();
+			counts.put(dictionary.getId(curWord), map.get(curWord));
+		}
+		return counts;
+	}
+	
+	
+	/**
+	 * Returns a copy of a pair count table as a map keyed by the two words
+	 * joined with the control character.
+	 */
+	private static HashMap<String, Integer> toPairNameKeys(LongIntHashMap counts)
+	{
+		HashMap<String, Integer> nameMap = new HashMap<String, Integer>();
+		for (int slot = 0; slot < counts.capacity(); slot++)
+		{
+			if (counts.isUsed(slot))
+				nameMap.put(CloudParameters.getPairName(counts.keyAt(slot)), counts.valueAt(slot));
+		}
+		return nameMap;
+	}
+	
+	/**
+	 * Returns a pair count table built from a map keyed by the two words
+	 * joined with the control character, adding any new words to the
+	 * WordDictionary.
+	 */
+	private static LongIntHashMap toPairCounts(HashMap<String, Integer> map)
+	{
+		LongIntHashMap counts = new LongIntHashMap(map.size());
+		for (Iterator<String> iter = map.keySet().iterator(); iter.hasNext();)
+		{
+			String curName = iter.next();
+			counts.put(CloudParameters.getPairKey(curName), map.get(curName));
+		}
+		return counts;
+	}
+	
+	/**
+	 * Returns the two words of a pair joined with the control character, as
+	 * used in session files.
+	 */
+	private static String getPairName(long pairKey)
+	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		return dictionary.getWord(LongIntHashMap.getFirstId(pairKey)) + controlChar
+			+ dictionary.getWord(LongIntHashMap.getSecondId(pairKey));
+	}
+	
+	/**
+	 * Returns the key for a pair name made by getPairName.
+	 */
+	private static long getPairKey(String pairName)
+	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int split = pairName.indexOf(controlChar);
+		int firstId = dictionary.getId(pairName.substring(0, split));
+		int secondId = dictionary.getId(pairName.substring(split + 1));
+		return LongIntHashMap.pairKey(firstId, secondId);
 	}
 	
 	/**
@@ -1182,74 +1727,349 @@ public class CloudParameters implements Comparable<CloudParameters>
 		selectedNumNodes = num;
 	}
 	
+	/**
+	 * Returns a copy of the word to node mapping keyed by word.  Built on each
+	 * call, so use getWordNodes to look up a single word.
+	 */
 	public HashMap<String, List<String>> getStringNodeMapping()
 	{
-		return stringNodeMapping;
+		WordDictionary dictionary = WordDictionary.getInstance();
+		HashMap<String, List<String>> mapping = new HashMap<String, List<String>>();
+		for (int slot = 0; slot < networkCounts.capacity(); slot++)
+		{
+			if (!networkCounts.isUsed(slot))
+				continue;
+			
+			int curWordId = networkCounts.keyAt(slot);
+			NodeBitmap nodes = this.getWordPostings(curWordId);
+			if (nodes != null)
+				mapping.put(dictionary.getWord(curWordId), this.toNodeIds(nodes));
+		}
+		return mapping;
 	}
 	
+	/**
+	 * Rebuilds the nodes containing each word from a mapping keyed by word,
+	 * as saved in a session file.  The network nodes must already be set.
+	 */
 	public void setStringNodeMapping(HashMap<String, List<String>> mapping)
 	{
-		stringNodeMapping = mapping;
+		WordDictionary dictionary = WordDictionary.getInstance();
+		WordPostings postings = new WordPostings();
+		for (Iterator<String> iter = mapping.keySet().iterator(); iter.hasNext();)
+		{
+			String curWord = iter.next();
+			int curWordId = dictionary.getId(curWord);
+			
+			//A node listed twice is at two positions in the network
+			HashMap<String, Integer> seen = new HashMap<String, Integer>();
+			List<String> nodeIDs = mapping.get(curWord);
+			for (int i = 0; i < nodeIDs.size(); i++)
+			{
+				String curNodeID = nodeIDs.get(i);
+				int[] positions = networkParams.getNodePositions(curNodeID);
+				if (positions == null)
+					continue;
+				
+				Integer occurrence = seen.get(curNodeID);
+				int index = (occurrence == null) ? 0 : occurrence;
+				postings.add(curWordId, positions[Math.min(index, positions.length - 1)]);
+				seen.put(curNodeID, index + 1);
+			}
+		}
+		postings.optimize();
+		wordPostings = new WordPostings[] {postings};
+		wordMatrices = new NodeWordMatrix[0];
+		postingsComplete = false;
 	}
 	
+	/**
+	 * Returns a copy of the network counts keyed by word.  Built on each
+	 * call, so use getNetworkCount to look up a single word.
+	 */
 	public HashMap<String,Integer> getNetworkCounts()
 	{
-		return networkCounts;
+		return CloudParameters.toWordKeys(networkCounts);
 	}
 	
 	public void setNetworkCounts(HashMap<String, Integer> counts)
 	{
-		networkCounts = counts;
+		networkCounts = CloudParameters.toIdCounts(counts);
 	}
 	
+	/**
+	 * Returns a copy of the selected counts keyed by word.  Built on each
+	 * call, so use getSelectedCount to look up a single word.
+	 */
 	public HashMap<String,Integer> getSelectedCounts()
 	{
-		return selectedCounts;
+		return CloudParameters.toWordKeys(selectedCounts);
 	}
 	
 	public void setSelectedCounts(HashMap<String, Integer> counts)
 	{
-		selectedCounts = counts;
+		selectedCounts = CloudParameters.toIdCounts(counts);
+		countedPositions = null;
+	}
+	
+	/**
+	 * Returns the nodes containing a word.
+	 * @param String - the word.
+	 * @return List - IDs of the nodes, or null if no node contains the word.
+	 */
+	public List<String> getWordNodes(String aWord)
+	{
+		NodeBitmap nodes = this.getWordPostings(WordDictionary.getInstance().findId(aWord));
+		if (nodes == null)
+			return null;
+		return this.toNodeIds(nodes);
+	}
+	
+	/**
+	 * Returns the positions in the network node list of the nodes containing
+	 * a word, in any of this cloud's attributes.  When the cloud has a single
+	 * attribute the shared postings are returned, so they must not be changed.
+	 * @param int - ID of the word.
+	 * @return NodeBitmap - node positions, or null if no node contains the word.
+	 */
+	public NodeBitmap getWordPostings(int wordId)
+	{
+		//Filtered words were never counted
+		if (!networkCounts.containsKey(wordId))
+			return null;
+		
+		NodeBitmap nodes = null;
+		boolean shared = false; //true while nodes is one of the shared postings
+		for (int i = 0; i < wordPostings.length; i++)
+		{
+			NodeBitmap curNodes = wordPostings[i].get(wordId);
+			if (curNodes == null)
+				continue;
+			
+			if (nodes == null)
+			{
+				nodes = curNodes;
+				shared = true;
+				continue;
+			}
+			
+			//Copy before merging in the next attribute
+			if (shared)
+			{
+				NodeBitmap union = new NodeBitmap();
+				union.or(nodes);
+				nodes = union;
+				shared = false;
+			}
+			nodes.or(curNodes);
+		}
+		return nodes;
+	}
+	
+	/**
+	 * Returns the IDs of the nodes at the given network positions.
+	 */
+	private List<String> toNodeIds(NodeBitmap nodes)
+	{
+		List<String> networkNodes = networkParams.getNetworkNodes();
+		int[] positions = nodes.toArray();
+		List<String> nodeIDs = new ArrayList<String>(positions.length);
+		for (int i = 0; i < positions.length; i++)
+			nodeIDs.add(networkNodes.get(positions[i]));
+		return nodeIDs;
+	}
+	
+	/**
+	 * Returns the number of times a word was counted in the network.
+	 * @param int - ID of the word.
+	 * @return int - the count, 0 if the word was not counted.
+	 */
+	public int getNetworkCount(int wordId)
+	{
+		return networkCounts.get(wordId);
+	}
+	
+	/**
+	 * Returns the number of times a word was counted in the selected nodes.
+	 * @param int - ID of the word.
+	 * @return int - the count, 0 if the word was not counted.
+	 */
+	public int getSelectedCount(int wordId)
+	{
+		return selectedCounts.get(wordId);
+	}
+	
+	/**
+	 * Returns the IDs of every word counted in the selected nodes, in
+	 * increasing order.
+	 * @return int[] - word IDs.
+	 */
+	public int[] getSelectedWordIds()
+	{
+		return selectedCounts.sortedKeys();
 	}
 	
+	/**
+	 * Returns a copy of the selected pair counts keyed by the two words
+	 * joined with the control character.  Built on each call, so use
+	 * getSelectedPairCount to look up a single pair.
+	 */
 	public HashMap<String,Integer> getSelectedPairCounts()
 	{
-		return selectedPairCounts;
+		return CloudParameters.toPairNameKeys(this.getSelectedPairTable());
 	}
 	
 	public void setSelectedPairCounts(HashMap<String, Integer> counts)
 	{
-		selectedPairCounts = counts;
+		selectedPairCounts = CloudParameters.toPairCounts(counts);
 	}
 	
+	/**
+	 * Returns a copy of the network pair counts keyed by the two words
+	 * joined with the control character.  Built on each call.
+	 */
 	public HashMap<String,Integer> getNetworkPairCounts()
 	{
-		return networkPairCounts;
+		return CloudParameters.toPairNameKeys(this.getNetworkPairTable());
 	}
 	
 	public void setNetworkPairCounts(HashMap<String, Integer> counts)
 	{
-		networkPairCounts = counts;
+		networkPairCounts = CloudParameters.toPairCounts(counts);
+	}
+	
+	/**
+	 * Returns the number of times a word pair was counted in the selected
+	 * nodes.
+	 * @param int - ID of the first word.
+	 * @param int - ID of the second word.
+	 * @return int - the count, 0 if the pair was not counted.
+	 */
+	public int getSelectedPairCount(int firstWordId, int secondWordId)
+	{
+		return this.getSelectedPairTable().get(LongIntHashMap.pairKey(firstWordId, secondWordId));
+	}
+	
+	/**
+	 * Returns the word pairs counted in the selected nodes, counting them
+	 * first if no clustering has needed them yet.  Loop over the slots of
+	 * the table and use firstIdAt and secondIdAt to get the IDs of each
+	 * pair.  The table must not be changed.
+	 * @return LongIntHashMap - selected pair counts.
+	 */
+	public LongIntHashMap getSelectedPairTable()
+	{
+		if (selectedPairCounts == null)
+			this.countSelectedPairs();
+		return selectedPairCounts;
+	}
+	
+	/**
+	 * Returns the word pairs counted in the whole network, counting them
+	 * first if no clustering has needed them yet.
+	 */
+	private LongIntHashMap getNetworkPairTable()
+	{
+		if (networkPairCounts == null)
+			this.countNetworkPairs();
+		return networkPairCounts;
+	}
+	
+	/**
+	 * Returns the index + 1 in pairRatioValues of each pair key, calculating
+	 * the pair ratios first if no clustering has needed them yet.
+	 */
+	private LongIntHashMap getPairRatioIndex()
+	{
+		if (pairRatioIndex == null)
+			this.calculatePairRatios();
+		return pairRatioIndex;
 	}
 	
+	/**
+	 * Returns a copy of the ratios keyed by word.  Built on each call, so use
+	 * getRatio to look up a single word.
+	 */
 	public HashMap<String,Double> getRatios()
 	{
-		return ratios;
+		return CloudParameters.toWordKeys(ratioIds, ratioValues);
 	}
 	
 	public void setRatios(HashMap<String, Double> r)
 	{
-		ratios = r;
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int[] ids = new int[r.size()];
+		double[] values = new double[r.size()];
+		int i = 0;
+		for (Iterator<String> iter = r.keySet().iterator(); iter.hasNext();)
+		{
+			String curWord = iter.next();
+			ids[i] = dictionary.getId(curWord);
+			values[i] = r.get(curWord);
+			i++;
+		}
+		
+		//Keep the IDs sorted with each ratio at the index of its ID
+		ratioIds = ids.clone();
+		Arrays.sort(ratioIds);
+		ratioValues = new double[ids.length];
+		for (i = 0; i < ids.length; i++)
+			ratioValues[Arrays.binarySearch(ratioIds, ids[i])] = values[i];
+	}
+	
+	/**
+	 * Returns the ratio of a word.
+	 * @param int - ID of the word.
+	 * @return double - the ratio, or NaN if the word is not in the selection.
+	 */
+	public double getRatio(int wordId)
+	{
+		int index = Arrays.binarySearch(ratioIds, wordId);
+		return (index < 0) ? Double.NaN : ratioValues[index];
 	}
 	
+	/**
+	 * Returns a copy of the pair ratios keyed by the two words joined with
+	 * the control character.  Built on each call, so use getPairRatio to
+	 * look up a single pair.
+	 */
 	public HashMap<String,Double> getPairRatios()
 	{
-		return pairRatios;
+		LongIntHashMap index = this.getPairRatioIndex();
+		HashMap<String, Double> nameMap = new HashMap<String, Double>();
+		for (int slot = 0; slot < index.capacity(); slot++)
+		{
+			if (index.isUsed(slot))
+				nameMap.put(CloudParameters.getPairName(index.keyAt(slot)), 
+						pairRatioValues[index.valueAt(slot) - 1]);
+		}
+		return nameMap;
 	}
 	
 	public void setPairRatios(HashMap<String, Double> r)
 	{
-		pairRatios = r;
+		pairRatioIndex = new LongIntHashMap(r.size());
+		pairRatioValues = new double[r.size()];
+		int numPairs = 0;
+		for (Iterator<String> iter = r.keySet().iterator(); iter.hasNext();)
+		{
+			String curName = iter.next();
+			pairRatioValues[numPairs] = r.get(curName);
+			pairRatioIndex.put(CloudParameters.getPairKey(curName), numPairs + 1);
+			numPairs++;
+		}
+	}
+	
+	/**
+	 * Returns the ratio of a word pair.
+	 * @param int - ID of the first word.
+	 * @param int - ID of the second word.
+	 * @return double - the ratio, or NaN if the pair is not in the selection.
+	 */
+	public double getPairRatio(int firstWordId, int secondWordId)
+	{
+		int index = this.getPairRatioIndex().get(LongIntHashMap.pairKey(firstWordId, secondWordId));
+		return (index == 0) ? Double.NaN : pairRatioValues[index - 1];
 	}
 	
 	public ArrayList<CloudWordInfo> getCloudWordInfoList()
@@ -179,7 +179,7 @@ public class CloudWordInfo implements Comparable<CloudWordInfo>
 				getCurCloud();
 				
 				//Get all nodes containing this word
-				List<String> nodeNames = cloudParams.getStringNodeMapping().get(word);
+				List<String> nodeNames = cloudParams.getWordNodes(word);
 				List<CyNode> nodes = new ArrayList<CyNode>();
 				
 				for(Iterator<String> iter = nodeNames.iterator(); iter.hasNext();)
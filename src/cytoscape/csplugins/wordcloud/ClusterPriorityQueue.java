@@ -26,7 +26,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 /**
  * The ClusterPriorityQueue builds a priority queue of WordPairs from
@@ -46,8 +45,6 @@ public class ClusterPriorityQueue
 	private CloudParameters params;
 	private boolean initialized;
 	
-	private static final char controlChar = '\u001F';
-	
 	//CONSTRUCTORS
 	/**
 	 * Creates a fresh instance of the priority queue.
@@ -73,14 +70,14 @@ public class ClusterPriorityQueue
 		if (!params.getRatiosInitialized())
 			params.updateRatios();
 		
-		Set<String> pairNames = params.getSelectedPairCounts().keySet();
-		for (Iterator<String> iter = pairNames.iterator(); iter.hasNext();)
+		LongIntHashMap pairCounts = params.getSelectedPairTable();
+		for (int slot = 0; slot < pairCounts.capacity(); slot++)
 		{
-			String curName = iter.next();
-			String first = curName.split(Character.toString(controlChar))[0];
-			String second = curName.split(Character.toString(controlChar))[1];
+			if (!pairCounts.isUsed(slot))
+				continue;
 			
-			WordPair curPair = new WordPair(first, second, params);
+			WordPair curPair = new WordPair(pairCounts.firstIdAt(slot), 
+					pairCounts.secondIdAt(slot), params);
 			curPair.calculateProbability();
 			queue.add(curPair);
 		}
@@ -122,21 +119,21 @@ public class ClusterPriorityQueue
 		//Remove all other entries from queue necessary
 		if (removedPair != null)
 		{
-			String firstWord = removedPair.getFirstWord();
-			String secondWord = removedPair.getSecondWord();
+			int firstWord = removedPair.getFirstWordId();
+			int secondWord = removedPair.getSecondWordId();
 			List<WordPair> toRemove = new ArrayList<WordPair>();
 			
 			//Create list to remove
 			for(Iterator<WordPair> iter = queue.iterator(); iter.hasNext();)
 			{
 				WordPair curPair = iter.next();
-				String curFirst = curPair.getFirstWord();
-				String curSecond = curPair.getSecondWord();
+				int curFirst = curPair.getFirstWordId();
+				int curSecond = curPair.getSecondWordId();
 				
 				//Remove all pairs with words in the same position as the removed
 				//and the inverse of the removed
-				if (firstWord.equals(curFirst) || secondWord.equals(curSecond) ||
-						(firstWord.equals(curSecond) && secondWord.equals(curFirst)))
+				if (firstWord == curFirst || secondWord == curSecond ||
+						(firstWord == curSecond && secondWord == curFirst))
 					toRemove.add(curPair);
 			}
 			
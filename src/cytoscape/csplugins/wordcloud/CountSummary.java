@@ -0,0 +1,299 @@
+/*
+ File: CountSummary.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The CountSummary class holds the statistics a cloud's ratios and
+ * clustering are calculated from, for either the network or the selected
+ * nodes: the count of each word, the count of each word pair, and the
+ * number of nodes times attributes that were counted.  Summaries of
+ * separate sets of nodes are combined by adding them, so a large set of
+ * nodes can be counted in shards, even by separate processes, and the
+ * summaries merged afterwards.
+ * <p>
+ * A summary is stored as a compact binary blob.  Word IDs only mean
+ * something within one WordDictionary, so the blob holds each word once
+ * as its UTF-8 bytes and refers to it by its index in the blob.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class CountSummary
+{
+	//VARIABLES
+	private IntIntHashMap wordCounts;
+	private LongIntHashMap pairCounts; //keyed by LongIntHashMap.pairKey
+	private int numNodes; //nodes times attributes
+	
+	private static final int MAGIC = 0x57435331; //"WCS1"
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty summary.
+	 */
+	public CountSummary()
+	{
+		this(new IntIntHashMap(), new LongIntHashMap(), 0);
+	}
+	
+	/**
+	 * Creates a summary holding the given tables.  The tables belong to the
+	 * summary afterwards, since adding summaries changes them.
+	 * @param IntIntHashMap - count of each word ID.
+	 * @param LongIntHashMap - count of each pair key.
+	 * @param int - number of nodes times number of attributes counted.
+	 */
+	public CountSummary(IntIntHashMap words, LongIntHashMap pairs, int nodes)
+	{
+		wordCounts = words;
+		pairCounts = pairs;
+		numNodes = nodes;
+	}
+	
+	/**
+	 * Creates a summary from a blob made by toBytes, adding its words to the
+	 * given dictionary.
+	 * @param byte[] - the stored summary.
+	 * @param WordDictionary - dictionary to give the words IDs in.
+	 * @throws IllegalArgumentException if the blob is not a complete,
+	 * well formed summary.
+	 */
+	public CountSummary(byte[] blob, WordDictionary dictionary)
+	{
+		this();
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob));
+		try
+		{
+			if (in.readInt() != MAGIC)
+				throw new IllegalArgumentException("Not a word count summary");
+			
+			numNodes = CountSummary.readVarInt(in, Integer.MAX_VALUE);
+			
+			//The words in the order the blob refers to them, each taking
+			//at least one byte so there can not be more than the blob holds
+			int numWords = CountSummary.readVarInt(in, blob.length);
+			int[] wordIds = new int[numWords];
+			for (int i = 0; i < numWords; i++)
+			{
+				wordIds[i] = dictionary.getId(CountSummary.readWord(in, blob.length));
+				int count = CountSummary.readVarInt(in, Integer.MAX_VALUE);
+				if (count > 0)
+					wordCounts.add(wordIds[i], count);
+			}
+			
+			int numPairs = CountSummary.readVarInt(in, blob.length);
+			for (int i = 0; i < numPairs; i++)
+			{
+				int first = wordIds[CountSummary.readVarInt(in, numWords - 1)];
+				int second = wordIds[CountSummary.readVarInt(in, numWords - 1)];
+				int count = CountSummary.readVarInt(in, Integer.MAX_VALUE);
+				pairCounts.add(LongIntHashMap.pairKey(first, second), count);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Word count summary is incomplete", e);
+		}
+	}
+	
+	//METHODS
+	
+	/**
+	 * Adds the counts of another summary to this one.  The summaries must
+	 * be of separate sets of nodes counted the same way.
+	 * @param CountSummary - the summary to add.
+	 */
+	public void addAll(CountSummary other)
+	{
+		wordCounts.addAll(other.wordCounts);
+		pairCounts.addAll(other.pairCounts);
+		numNodes = numNodes + other.numNodes;
+	}
+	
+	/**
+	 * Stores the summary as a compact binary blob.
+	 * @param WordDictionary - dictionary the word IDs belong to.
+	 * @return byte[] - the stored summary.
+	 */
+	public byte[] toBytes(WordDictionary dictionary)
+	{
+		//Give every word an index, pairs can only hold counted words but
+		//any others are stored as well with a count of 0
+		IntIntHashMap indexes = new IntIntHashMap(wordCounts.size());
+		int[] words = new int[wordCounts.size()];
+		int numWords = 0;
+		for (int slot = 0; slot < wordCounts.capacity(); slot++)
+		{
+			if (wordCounts.isUsed(slot))
+			{
+				indexes.put(wordCounts.keyAt(slot), numWords + 1);
+				words[numWords++] = wordCounts.keyAt(slot);
+			}
+		}
+		for (int slot = 0; slot < pairCounts.capacity(); slot++)
+		{
+			if (!pairCounts.isUsed(slot))
+				continue;
+			
+			int[] pairIds = {pairCounts.firstIdAt(slot), pairCounts.secondIdAt(slot)};
+			for (int i = 0; i < pairIds.length; i++)
+			{
+				if (indexes.containsKey(pairIds[i]))
+					continue;
+				
+				if (numWords == words.length)
+				{
+					int[] newWords = new int[words.length * 2 + 1];
+					System.arraycopy(words, 0, newWords, 0, numWords);
+					words = newWords;
+				}
+				indexes.put(pairIds[i], numWords + 1);
+				words[numWords++] = pairIds[i];
+			}
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(MAGIC);
+			CountSummary.writeVarInt(out, numNodes);
+			
+			CountSummary.writeVarInt(out, numWords);
+			for (int i = 0; i < numWords; i++)
+			{
+				CountSummary.writeWord(out, dictionary.getWord(words[i]));
+				CountSummary.writeVarInt(out, wordCounts.get(words[i]));
+			}
+			
+			CountSummary.writeVarInt(out, pairCounts.size());
+			for (int slot = 0; slot < pairCounts.capacity(); slot++)
+			{
+				if (!pairCounts.isUsed(slot))
+					continue;
+				
+				CountSummary.writeVarInt(out, indexes.get(pairCounts.firstIdAt(slot)) - 1);
+				CountSummary.writeVarInt(out, indexes.get(pairCounts.secondIdAt(slot)) - 1);
+				CountSummary.writeVarInt(out, pairCounts.valueAt(slot));
+			}
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			//Never thrown when writing to memory
+			throw new RuntimeException(e);
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Writes a word as the number of its UTF-8 bytes followed by the bytes,
+	 * so words of any length can be stored.
+	 */
+	private static void writeWord(DataOutputStream out, String word) throws IOException
+	{
+		byte[] bytes = word.getBytes("UTF-8");
+		CountSummary.writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Reads a word written by writeWord, which can not be longer than the
+	 * given number of bytes.
+	 * @throws IllegalArgumentException if the length is out of range.
+	 */
+	private static String readWord(DataInputStream in, int max) throws IOException
+	{
+		byte[] bytes = new byte[CountSummary.readVarInt(in, max)];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+	
+	/**
+	 * Writes a non negative int in as few bytes as it needs, seven bits at
+	 * a time.
+	 */
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value = value >>> 7;
+		}
+		out.writeByte(value);
+	}
+	
+	/**
+	 * Reads an int written by writeVarInt, which must be between 0 and the
+	 * given maximum.
+	 * @throws IllegalArgumentException if the value is out of range.
+	 */
+	private static int readVarInt(DataInputStream in, int max) throws IOException
+	{
+		int value = CountSummary.readVarInt(in);
+		if (value < 0 || value > max)
+			throw new IllegalArgumentException("Word count summary is corrupt");
+		return value;
+	}
+	
+	/**
+	 * Reads an int written by writeVarInt.
+	 */
+	private static int readVarInt(DataInputStream in) throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			int curByte = in.readUnsignedByte();
+			value = value | ((curByte & 0x7F) << shift);
+			if ((curByte & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed count");
+	}
+	
+	//Getters and Setters
+	
+	public IntIntHashMap getWordCounts()
+	{
+		return wordCounts;
+	}
+	
+	public LongIntHashMap getPairCounts()
+	{
+		return pairCounts;
+	}
+	
+	public int getNumNodes()
+	{
+		return numNodes;
+	}
+}
@@ -26,8 +26,6 @@ import giny.model.Edge;
 import giny.model.Node;
 
 import java.awt.event.ActionEvent;
-import java.util.HashMap;
-import java.util.Iterator;
 
 import cytoscape.CyNetwork;
 import cytoscape.Cytoscape;
@@ -56,7 +54,6 @@ public class CreateCloudNetworkAction extends CytoscapeAction
 	public static String WORD_VAL = "Word_Prob";
 	public static String CO_VAL = "CO_Prob";
 	public static String INTERACTION_TYPE = "CO";
-	private static final char controlChar = '\u001F';
 	
 	//CONSTRUCTORS
 	
@@ -80,41 +77,43 @@ public class CreateCloudNetworkAction extends CytoscapeAction
 	{
 		//Retrieve the current cloud and relevent information
 		CloudParameters curCloud = SemanticSummaryManager.getInstance().getCurCloud();
-		HashMap<String, Double> ratios = curCloud.getRatios();
-		HashMap<String, Double> pairRatios = curCloud.getPairRatios();
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int[] wordIds = curCloud.getSelectedWordIds();
+		LongIntHashMap pairs = curCloud.getSelectedPairTable();
 		
 		//Create the network
 		String newNetworkName = curCloud.getNextNetworkName();
 		CyNetwork network = Cytoscape.createNetwork(newNetworkName);
 		
 		//Create nodes
-		for (Iterator<String> iter = ratios.keySet().iterator(); iter.hasNext();)
+		for (int i = 0; i < wordIds.length; i++)
 		{
-			String curWord = iter.next();
+			String curWord = dictionary.getWord(wordIds[i]);
 			Node node = Cytoscape.getCyNode(curWord, true);
 			
 			network.addNode(node);
 			
 			//Add attribute to the node
-			Double nodeRatio = ratios.get(curWord);
+			double nodeRatio = curCloud.getRatio(wordIds[i]);
 			String attName = newNetworkName + ":" + CreateCloudNetworkAction.WORD_VAL;
 			CyAttributes nodeAttrs = Cytoscape.getNodeAttributes();
 			nodeAttrs.setAttribute(node.getIdentifier(), attName, nodeRatio);
 		}
 		
 		//Create edges
-		for (Iterator<String> iter = pairRatios.keySet().iterator(); iter.hasNext();)
+		for (int slot = 0; slot < pairs.capacity(); slot++)
 		{
-			String curEdge = iter.next();
-			Double edgeRatio = pairRatios.get(curEdge);
-			String[] nodeNames = curEdge.split(Character.toString(controlChar));
-			String nodeName1 = nodeNames[0];
-			String nodeName2 = nodeNames[1];
-			Node node1 = Cytoscape.getCyNode(nodeName1, false);
-			Node node2 = Cytoscape.getCyNode(nodeName2, false);
-			Double node1Ratio = ratios.get(nodeName1);
-			Double node2Ratio = ratios.get(nodeName2);
-			Double conditionalRatio = edgeRatio / (node1Ratio * node2Ratio);
+			if (!pairs.isUsed(slot))
+				continue;
+			
+			int firstId = pairs.firstIdAt(slot);
+			int secondId = pairs.secondIdAt(slot);
+			double edgeRatio = curCloud.getPairRatio(firstId, secondId);
+			Node node1 = Cytoscape.getCyNode(dictionary.getWord(firstId), false);
+			Node node2 = Cytoscape.getCyNode(dictionary.getWord(secondId), false);
+			double node1Ratio = curCloud.getRatio(firstId);
+			double node2Ratio = curCloud.getRatio(secondId);
+			double conditionalRatio = edgeRatio / (node1Ratio * node2Ratio);
 			
 			//Only create if prob > 1
 			if (conditionalRatio > 1)
@@ -0,0 +1,228 @@
+/*
+ File: DelimiterAutomaton.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The DelimiterAutomaton class is an Aho-Corasick automaton built from
+ * all of the multi-character user delimiters.  Feeding it one character
+ * at a time finds every occurrence of every delimiter in a single pass,
+ * and delimiters are matched literally rather than as regular expressions.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class DelimiterAutomaton
+{
+	//VARIABLES
+	private char[][] edgeChars; //sorted outgoing characters for each state
+	private int[][] edgeTargets; //target state for each outgoing character
+	private int[] fail; //failure link for each state
+	private int[] depth; //length of the prefix each state represents
+	private int[] matchLength; //longest delimiter ending at each state, or 0
+
+	private static final char[] NOCHARS = new char[0];
+	private static final int[] NOTARGETS = new int[0];
+
+	//CONSTRUCTORS
+
+	/**
+	 * Creates the automaton for the supplied delimiters.  Delimiters must
+	 * already be lower case; empty delimiters are ignored.
+	 * @param Collection - the delimiters to find.
+	 */
+	public DelimiterAutomaton(Collection<String> delims)
+	{
+		//Build the trie
+		List<StringBuilder> stateChars = new ArrayList<StringBuilder>();
+		List<List<Integer>> stateTargets = new ArrayList<List<Integer>>();
+		List<Integer> stateDepth = new ArrayList<Integer>();
+		List<Integer> stateMatch = new ArrayList<Integer>();
+
+		stateChars.add(new StringBuilder());
+		stateTargets.add(new ArrayList<Integer>());
+		stateDepth.add(0);
+		stateMatch.add(0);
+
+		for (Iterator<String> iter = delims.iterator(); iter.hasNext();)
+		{
+			String curDelim = iter.next();
+			int state = 0;
+			for (int i = 0; i < curDelim.length(); i++)
+			{
+				char curChar = curDelim.charAt(i);
+				int index = stateChars.get(state).indexOf(String.valueOf(curChar));
+				if (index >= 0)
+				{
+					state = stateTargets.get(state).get(index);
+				}
+				else
+				{
+					int newState = stateChars.size();
+					stateChars.add(new StringBuilder());
+					stateTargets.add(new ArrayList<Integer>());
+					stateDepth.add(i + 1);
+					stateMatch.add(0);
+
+					stateChars.get(state).append(curChar);
+					stateTargets.get(state).add(newState);
+					state = newState;
+				}
+			}
+			if (curDelim.length() > 0)
+				stateMatch.set(state, curDelim.length());
+		}
+
+		//Compact into arrays with sorted edges
+		int numStates = stateChars.size();
+		edgeChars = new char[numStates][];
+		edgeTargets = new int[numStates][];
+		fail = new int[numStates];
+		depth = new int[numStates];
+		matchLength = new int[numStates];
+
+		for (int state = 0; state < numStates; state++)
+		{
+			depth[state] = stateDepth.get(state);
+			matchLength[state] = stateMatch.get(state);
+
+			String chars = stateChars.get(state).toString();
+			if (chars.length() == 0)
+			{
+				edgeChars[state] = NOCHARS;
+				edgeTargets[state] = NOTARGETS;
+				continue;
+			}
+
+			char[] sorted = chars.toCharArray();
+			Arrays.sort(sorted);
+			int[] targets = new int[sorted.length];
+			for (int i = 0; i < sorted.length; i++)
+			{
+				int index = chars.indexOf(sorted[i]);
+				targets[i] = stateTargets.get(state).get(index);
+			}
+			edgeChars[state] = sorted;
+			edgeTargets[state] = targets;
+		}
+
+		//Failure links, breadth first so shallower states are done first
+		int[] queue = new int[numStates];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < edgeTargets[0].length; i++)
+		{
+			fail[edgeTargets[0][i]] = 0;
+			queue[tail++] = edgeTargets[0][i];
+		}
+
+		while (head < tail)
+		{
+			int state = queue[head++];
+			for (int i = 0; i < edgeChars[state].length; i++)
+			{
+				char curChar = edgeChars[state][i];
+				int child = edgeTargets[state][i];
+
+				int failState = fail[state];
+				while (failState != 0 && this.getEdge(failState, curChar) < 0)
+					failState = fail[failState];
+
+				int failTarget = this.getEdge(failState, curChar);
+				fail[child] = (failTarget >= 0) ? failTarget : 0;
+
+				//A delimiter ending at the failure state also ends here
+				if (matchLength[fail[child]] > matchLength[child])
+					matchLength[child] = matchLength[fail[child]];
+
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	//METHODS
+
+	/**
+	 * Returns the state reached by reading the given character from the
+	 * given state.  The start state is 0.
+	 * @param int - current state.
+	 * @param char - next lower case character.
+	 * @return int - the new state.
+	 */
+	public int step(int state, char aChar)
+	{
+		while (true)
+		{
+			int next = this.getEdge(state, aChar);
+			if (next >= 0)
+				return next;
+
+			if (state == 0)
+				return 0;
+
+			state = fail[state];
+		}
+	}
+
+	/**
+	 * Returns the length of the longest delimiter that ends at the
+	 * character that led to this state, or 0 if no delimiter ends there.
+	 * @param int - state returned by step.
+	 * @return int - length of the longest matched delimiter.
+	 */
+	public int getMatchLength(int state)
+	{
+		return matchLength[state];
+	}
+
+	/**
+	 * Returns the number of characters read so far that could still be the
+	 * start of a delimiter.  No delimiter found later can begin before them.
+	 * @param int - state returned by step.
+	 * @return int - length of the partial match.
+	 */
+	public int getDepth(int state)
+	{
+		return depth[state];
+	}
+
+	/**
+	 * Returns the trie child of a state for a character, or -1.
+	 */
+	private int getEdge(int state, char aChar)
+	{
+		char[] chars = edgeChars[state];
+
+		//Most states have a single child
+		if (chars.length == 1)
+			return (chars[0] == aChar) ? edgeTargets[state][0] : -1;
+
+		int index = Arrays.binarySearch(chars, aChar);
+		return (index >= 0) ? edgeTargets[state][index] : -1;
+	}
+}
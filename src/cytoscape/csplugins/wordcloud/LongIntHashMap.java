@@ -0,0 +1,336 @@
+/*
+ File: LongIntHashMap.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.Arrays;
+
+/**
+ * The LongIntHashMap class is an open addressed hash table from non negative
+ * long keys to int values, laid out like IntIntHashMap.  It is used to count
+ * word pairs, with the IDs of the two words packed into one key by pairKey,
+ * so no String is built for a pair and none has to be split apart again.
+ * <p>
+ * To visit every entry, loop over the slots from 0 to capacity() - 1 and
+ * skip those where isUsed is false.  firstIdAt and secondIdAt give the two
+ * word IDs of the pair in a slot.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class LongIntHashMap
+{
+	//VARIABLES
+	private long[] keys; //key in each slot, FREE when empty
+	private int[] values;
+	private int size;
+	
+	private static final long FREE = -1L;
+	private static final int INITIALCAPACITY = 64;
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty table.
+	 */
+	public LongIntHashMap()
+	{
+		this(INITIALCAPACITY / 2);
+	}
+	
+	/**
+	 * Creates an empty table that can hold the given number of keys before
+	 * it needs to grow.
+	 * @param int - expected number of keys.
+	 */
+	public LongIntHashMap(int expectedSize)
+	{
+		int capacity = INITIALCAPACITY;
+		while (capacity < expectedSize * 2)
+			capacity = capacity * 2;
+		
+		keys = new long[capacity];
+		Arrays.fill(keys, FREE);
+		values = new int[capacity];
+		size = 0;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Returns the value for a key, or 0 if the key is not in the table.
+	 * @param long - the key.
+	 * @return int - the value.
+	 */
+	public int get(long key)
+	{
+		int slot = this.findSlot(key);
+		return (keys[slot] == FREE) ? 0 : values[slot];
+	}
+	
+	/**
+	 * Returns true if the key is in the table.
+	 * @param long - the key.
+	 * @return true if the key has a value.
+	 */
+	public boolean containsKey(long key)
+	{
+		return keys[this.findSlot(key)] != FREE;
+	}
+	
+	/**
+	 * Sets the value for a key.
+	 * @param long - the key, which must not be negative.
+	 * @param int - the value.
+	 */
+	public void put(long key, int value)
+	{
+		int slot = this.findSlot(key);
+		if (keys[slot] == FREE)
+		{
+			keys[slot] = key;
+			size++;
+			values[slot] = value;
+			this.checkCapacity();
+		}
+		else
+			values[slot] = value;
+	}
+	
+	/**
+	 * Adds to the value for a key, adding the key if needed.
+	 * @param long - the key, which must not be negative.
+	 * @param int - amount to add.
+	 * @return int - the new value.
+	 */
+	public int add(long key, int amount)
+	{
+		int slot = this.findSlot(key);
+		if (keys[slot] == FREE)
+		{
+			keys[slot] = key;
+			size++;
+			values[slot] = amount;
+			this.checkCapacity();
+			return amount;
+		}
+		values[slot] += amount;
+		return values[slot];
+	}
+	
+	/**
+	 * Removes a key from the table.
+	 * @param long - the key.
+	 * @return int - the value it had, or 0.
+	 */
+	public int remove(long key)
+	{
+		int slot = this.findSlot(key);
+		if (keys[slot] == FREE)
+			return 0;
+		
+		int oldValue = values[slot];
+		keys[slot] = FREE;
+		size--;
+		
+		//Move later entries of the same run back so lookups still find them
+		int mask = keys.length - 1;
+		int gap = slot;
+		int cur = (slot + 1) & mask;
+		while (keys[cur] != FREE)
+		{
+			int home = LongIntHashMap.mix(keys[cur]) & mask;
+			
+			//Move it if its home is not between the gap and here
+			if (((cur - home) & mask) >= ((cur - gap) & mask))
+			{
+				keys[gap] = keys[cur];
+				values[gap] = values[cur];
+				keys[cur] = FREE;
+				gap = cur;
+			}
+			cur = (cur + 1) & mask;
+		}
+		return oldValue;
+	}
+	
+	/**
+	 * Adds every value of another table to the value for the same key here.
+	 * @param LongIntHashMap - the table to add.
+	 */
+	public void addAll(LongIntHashMap other)
+	{
+		for (int slot = 0; slot < other.keys.length; slot++)
+		{
+			if (other.keys[slot] != FREE)
+				this.add(other.keys[slot], other.values[slot]);
+		}
+	}
+	
+	/**
+	 * Returns the number of keys in the table.
+	 * @return int - number of keys.
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Returns the number of slots, for looping over the entries.
+	 * @return int - number of slots.
+	 */
+	public int capacity()
+	{
+		return keys.length;
+	}
+	
+	/**
+	 * Returns true if a slot holds an entry.
+	 * @param int - the slot.
+	 * @return true if keyAt and valueAt are valid for the slot.
+	 */
+	public boolean isUsed(int slot)
+	{
+		return keys[slot] != FREE;
+	}
+	
+	/**
+	 * Returns the key held in a slot.
+	 * @param int - the slot.
+	 * @return long - the key.
+	 */
+	public long keyAt(int slot)
+	{
+		return keys[slot];
+	}
+	
+	/**
+	 * Returns the value held in a slot.
+	 * @param int - the slot.
+	 * @return int - the value.
+	 */
+	public int valueAt(int slot)
+	{
+		return values[slot];
+	}
+	
+	/**
+	 * Returns the ID of the first word of the pair held in a slot.
+	 * @param int - the slot.
+	 * @return int - word ID.
+	 */
+	public int firstIdAt(int slot)
+	{
+		return LongIntHashMap.getFirstId(keys[slot]);
+	}
+	
+	/**
+	 * Returns the ID of the second word of the pair held in a slot.
+	 * @param int - the slot.
+	 * @return int - word ID.
+	 */
+	public int secondIdAt(int slot)
+	{
+		return LongIntHashMap.getSecondId(keys[slot]);
+	}
+	
+	/**
+	 * Packs the IDs of two words into one key.
+	 * @param int - ID of the first word.
+	 * @param int - ID of the second word.
+	 * @return long - key for the pair.
+	 */
+	public static long pairKey(int firstId, int secondId)
+	{
+		return ((long)firstId << 32) | (secondId & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Returns the ID of the first word in a pair key.
+	 * @param long - key made by pairKey.
+	 * @return int - word ID.
+	 */
+	public static int getFirstId(long key)
+	{
+		return (int)(key >>> 32);
+	}
+	
+	/**
+	 * Returns the ID of the second word in a pair key.
+	 * @param long - key made by pairKey.
+	 * @return int - word ID.
+	 */
+	public static int getSecondId(long key)
+	{
+		return (int)key;
+	}
+	
+	/**
+	 * Returns the slot holding a key, or the empty slot where it would go.
+	 */
+	private int findSlot(long key)
+	{
+		int mask = keys.length - 1;
+		int slot = LongIntHashMap.mix(key) & mask;
+		while (keys[slot] != FREE && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	/**
+	 * Doubles the table once it is half full.
+	 */
+	private void checkCapacity()
+	{
+		if (size * 2 <= keys.length)
+			return;
+		
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, FREE);
+		values = new int[oldKeys.length * 2];
+		
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] == FREE)
+				continue;
+			
+			int slot = LongIntHashMap.mix(oldKeys[i]) & mask;
+			while (keys[slot] != FREE)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+	
+	/**
+	 * Spreads the bits of a key over the table.
+	 */
+	private static int mix(long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int)(hash ^ (hash >>> 32));
+	}
+}
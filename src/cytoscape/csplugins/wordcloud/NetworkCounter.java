@@ -0,0 +1,337 @@
+/*
+ File: NetworkCounter.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The NetworkCounter class counts the words of every node in a network and
+ * builds the node by word matrix and postings of each attribute, given the
+ * word IDs of every node value.  Word pairs are only needed for clustering,
+ * so they are not counted here but later from the rows of the matrix.  Each attribute is counted into tables of its own, so
+ * the counts for any set of attributes can later be made by adding up the
+ * tables of each attribute in the set.  Large networks are split into ranges of nodes that are
+ * counted on all available processors, each into tables of its own, and the
+ * tables of neighbouring ranges are then merged in pairs, also in parallel,
+ * until one is left.  Counts are sums, so they are exactly the same as on a
+ * single thread, and ranges are always merged in node order so postings are
+ * built by appending.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class NetworkCounter
+{
+	//VARIABLES
+	private int[][] nodeWordIds; //word IDs of node n, attribute i at n * numAttributes + i
+	private int[] nodePositions; //position of each node in the network node list
+	private int numAttributes;
+	private WordFilter filter;
+	private WordDictionary dictionary;
+	
+	private Counts result;
+	
+	//Networks smaller than this are not worth handing to other threads
+	private static final int MINPARALLELNODES = 2000;
+	private static final int CHUNKSPERTHREAD = 4;
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates a NetworkCounter for the word IDs of a set of nodes.
+	 * @param int[][] - word IDs of node n, attribute i at n * numAttributes + i,
+	 * or null where the node has no value.
+	 * @param int[] - position of each node in the network node list.
+	 * @param int - number of attributes of each node.
+	 * @param WordFilter - words not to count.
+	 * @param WordDictionary - dictionary the word IDs belong to.
+	 */
+	public NetworkCounter(int[][] wordIds, int[] positions, int attributes, 
+			WordFilter aFilter, WordDictionary aDictionary)
+	{
+		nodeWordIds = wordIds;
+		nodePositions = positions;
+		numAttributes = attributes;
+		filter = aFilter;
+		dictionary = aDictionary;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Counts every node.
+	 */
+	public void run()
+	{
+		int numNodes = (numAttributes == 0) ? 0 : nodeWordIds.length / numAttributes;
+		
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		if (numThreads < 2 || numNodes < MINPARALLELNODES)
+		{
+			result = this.countChunk(0, numNodes);
+			this.optimizePostings();
+			return;
+		}
+		
+		//Count the chunks at the same time, each into its own tables
+		int numChunks = numThreads * CHUNKSPERTHREAD;
+		int chunkSize = (numNodes + numChunks - 1) / numChunks;
+		List<Future<Counts>> futures = new ArrayList<Future<Counts>>();
+		for (int start = 0; start < numNodes; start += chunkSize)
+		{
+			final int chunkStart = start;
+			final int chunkEnd = Math.min(start + chunkSize, numNodes);
+			futures.add(ParallelTokenizer.getExecutor().submit(new Callable<Counts>()
+			{
+				public Counts call()
+				{
+					return countChunk(chunkStart, chunkEnd);
+				}
+			}));
+		}
+		
+		List<Counts> chunks = new ArrayList<Counts>();
+		for (int i = 0; i < futures.size(); i++)
+		{
+			Counts chunkCounts;
+			try
+			{
+				chunkCounts = futures.get(i).get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				chunkCounts = null;
+			}
+			catch (ExecutionException e)
+			{
+				throw new RuntimeException("Counting network nodes failed", e.getCause());
+			}
+			
+			//Do the chunk here if waiting for its worker was interrupted
+			if (chunkCounts == null)
+			{
+				futures.get(i).cancel(true);
+				int chunkStart = i * chunkSize;
+				chunkCounts = this.countChunk(chunkStart, Math.min(chunkStart + chunkSize, numNodes));
+			}
+			chunks.add(chunkCounts);
+		}
+		
+		//Merge neighbouring chunks in pairs until one is left
+		while (chunks.size() > 1)
+		{
+			List<Future<Counts>> merges = new ArrayList<Future<Counts>>();
+			for (int i = 0; i + 1 < chunks.size(); i += 2)
+			{
+				final Counts first = chunks.get(i);
+				final Counts second = chunks.get(i + 1);
+				merges.add(ParallelTokenizer.getExecutor().submit(new Callable<Counts>()
+				{
+					public Counts call()
+					{
+						first.addAll(second);
+						return first;
+					}
+				}));
+			}
+			
+			List<Counts> merged = new ArrayList<Counts>();
+			for (int i = 0; i < merges.size(); i++)
+				merged.add(NetworkCounter.waitFor(merges.get(i)));
+			if (chunks.size() % 2 == 1)
+				merged.add(chunks.get(chunks.size() - 1));
+			chunks = merged;
+		}
+		
+		result = chunks.get(0);
+		this.optimizePostings();
+	}
+	
+	/**
+	 * Returns the number of times each word was counted in an attribute,
+	 * once run is done.
+	 * @param int - index of the attribute.
+	 * @return IntIntHashMap - count of each word ID.
+	 */
+	public IntIntHashMap getWordCounts(int attribute)
+	{
+		return result.wordCounts[attribute];
+	}
+	
+	/**
+	 * Returns the postings built for an attribute, once run is done.
+	 * @param int - index of the attribute.
+	 * @return WordPostings - nodes containing each word.
+	 */
+	public WordPostings getPostings(int attribute)
+	{
+		return result.postings[attribute];
+	}
+	
+	/**
+	 * Returns the node by word matrix built for an attribute, once run is
+	 * done.
+	 * @param int - index of the attribute.
+	 * @return NodeWordMatrix - counted words of each node.
+	 */
+	public NodeWordMatrix getMatrix(int attribute)
+	{
+		return result.matrices[attribute];
+	}
+	
+	/**
+	 * Counts the nodes from start up to end into new tables.
+	 */
+	private Counts countChunk(int start, int end)
+	{
+		Counts counts = new Counts(numAttributes, (start < end) ? nodePositions[start] : 0);
+		int[] row = new int[16];
+		for (int n = start; n < end; n++)
+		{
+			for (int i = 0; i < numAttributes; i++)
+			{
+				int[] wordIds = nodeWordIds[n * numAttributes + i];
+			
+				if (wordIds == null) // problem with nodes or attributes
+					continue;
+				int rowLength = 0;
+				IntIntHashMap wordCounts = counts.wordCounts[i];
+				WordPostings postings = counts.postings[i];
+				
+				//Iterate through all words
+				for (int j = 0; j < wordIds.length; j++)
+				{
+					int curWordId = wordIds[j];
+					
+					//Check filters
+					if (!filter.contains(dictionary.getWord(curWordId)))
+					{
+						//Update counts
+						wordCounts.add(curWordId, 1);
+						postings.add(curWordId, nodePositions[n]);
+						
+						//Add to the row of the node, which keeps the pairs
+						if (rowLength == row.length)
+						{
+							int[] newRow = new int[row.length * 2];
+							System.arraycopy(row, 0, newRow, 0, rowLength);
+							row = newRow;
+						}
+						row[rowLength++] = curWordId;
+					}//end filter if
+				}// word iterator
+				
+				counts.matrices[i].addRow(nodePositions[n], row, rowLength);
+			}//end attribute iterator
+		}//end node iterator
+		
+		return counts;
+	}
+	
+	/**
+	 * Compresses the finished postings and matrices.
+	 */
+	private void optimizePostings()
+	{
+		for (int i = 0; i < numAttributes; i++)
+		{
+			result.postings[i].optimize();
+			result.matrices[i].trim();
+		}
+	}
+	
+	/**
+	 * Returns the result of a merge.  A merge changes the tables of the
+	 * earlier chunk in place, so it can not be redone here and is always
+	 * waited for.
+	 */
+	private static Counts waitFor(Future<Counts> merge)
+	{
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return merge.get();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+				catch (ExecutionException e)
+				{
+					throw new RuntimeException("Merging network counts failed", e.getCause());
+				}
+			}
+		}
+		finally
+		{
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * The counts, matrix and postings of each attribute for a range of
+	 * nodes.
+	 */
+	private static class Counts
+	{
+		private IntIntHashMap[] wordCounts;
+		private WordPostings[] postings;
+		private NodeWordMatrix[] matrices;
+		
+		Counts(int numAttributes, int firstPosition)
+		{
+			wordCounts = new IntIntHashMap[numAttributes];
+			postings = new WordPostings[numAttributes];
+			matrices = new NodeWordMatrix[numAttributes];
+			for (int i = 0; i < numAttributes; i++)
+			{
+				wordCounts[i] = new IntIntHashMap();
+				postings[i] = new WordPostings();
+				matrices[i] = new NodeWordMatrix(firstPosition);
+			}
+		}
+		
+		/**
+		 * Adds the counts of the range of nodes that follows this one.
+		 */
+		void addAll(Counts later)
+		{
+			for (int i = 0; i < postings.length; i++)
+			{
+				wordCounts[i].addAll(later.wordCounts[i]);
+				postings[i].addAll(later.postings[i]);
+				matrices[i].addAll(later.matrices[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ File: NetworkCounts.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * The NetworkCounts class holds the word counts, pair counts, node by word
+ * matrices and postings of a whole network for one set of attributes, filter and delimiters.
+ * Every cloud on the network that counts the same way gets identical
+ * results, so SemanticSummaryParameters keeps one NetworkCounts for each
+ * combination and lends it to each cloud that needs it.  The counts are
+ * shared, so they must not be changed once they have been stored.  Pair
+ * counts are only made when a clustered cloud first needs them, by
+ * whichever cloud gets there first.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class NetworkCounts
+{
+	//VARIABLES
+	private IntIntHashMap wordCounts;
+	private LongIntHashMap pairCounts;
+	private WordPostings[] postings; //one for each attribute
+	private NodeWordMatrix[] matrices; //one for each attribute
+	private Integer numNodes; //network nodes times attributes
+	private int references; //number of clouds using these counts
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates a NetworkCounts from the results of counting a network.
+	 * @param IntIntHashMap - count of each word.
+	 * @param LongIntHashMap - count of each word pair, or null until counted.
+	 * @param WordPostings[] - nodes containing each word, for each attribute.
+	 * @param NodeWordMatrix[] - counted words of each node, for each attribute.
+	 * @param Integer - number of network nodes times number of attributes.
+	 */
+	public NetworkCounts(IntIntHashMap words, LongIntHashMap pairs, 
+			WordPostings[] wordPostings, NodeWordMatrix[] wordMatrices, Integer nodes)
+	{
+		wordCounts = words;
+		pairCounts = pairs;
+		postings = wordPostings;
+		matrices = wordMatrices;
+		numNodes = nodes;
+		references = 0;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Records that one more cloud is using these counts.
+	 */
+	public void retain()
+	{
+		references++;
+	}
+	
+	/**
+	 * Records that a cloud has stopped using these counts.
+	 * @return int - number of clouds still using them.
+	 */
+	public int release()
+	{
+		references--;
+		return references;
+	}
+	
+	//Getters and Setters
+	
+	public IntIntHashMap getWordCounts()
+	{
+		return wordCounts;
+	}
+	
+	public LongIntHashMap getPairCounts()
+	{
+		return pairCounts;
+	}
+	
+	public void setPairCounts(LongIntHashMap pairs)
+	{
+		pairCounts = pairs;
+	}
+	
+	public WordPostings[] getPostings()
+	{
+		return postings;
+	}
+	
+	public NodeWordMatrix[] getMatrices()
+	{
+		return matrices;
+	}
+	
+	public Integer getNumNodes()
+	{
+		return numNodes;
+	}
+	
+	public int getReferences()
+	{
+		return references;
+	}
+}
@@ -0,0 +1,626 @@
+/*
+ File: NodeBitmap.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * The NodeBitmap class is a compressed set of node positions, used to record
+ * which nodes of a network contain a word.  Like a Roaring bitmap, positions
+ * are split on their high 16 bits into containers, and each container keeps
+ * its low 16 bits in whichever form is smallest: a sorted array when there
+ * are few, a 65536 bit bitmap when there are many, and a list of runs when
+ * the positions are mostly consecutive.
+ * <p>
+ * Positions are added with add, which is fastest in increasing order.  Call
+ * runOptimize once all positions are added to convert containers to runs
+ * where that saves space.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class NodeBitmap
+{
+	//VARIABLES
+	private char[] keys; //high 16 bits of each container, increasing
+	private Container[] containers;
+	private int numContainers;
+	
+	private static final int ARRAYMAX = 4096; //most values in an array container
+	private static final int BITMAPWORDS = 1024; //longs in a bitmap container
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty NodeBitmap.
+	 */
+	public NodeBitmap()
+	{
+		keys = new char[4];
+		containers = new Container[4];
+		numContainers = 0;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Adds a position to the set.
+	 * @param int - the position, which must not be negative.
+	 */
+	public void add(int value)
+	{
+		char high = (char)(value >>> 16);
+		char low = (char)value;
+		
+		//Positions mostly arrive in increasing order
+		int index;
+		if (numContainers > 0 && keys[numContainers - 1] == high)
+			index = numContainers - 1;
+		else
+			index = this.findContainer(high);
+		
+		if (index < 0)
+		{
+			index = -index - 1;
+			if (numContainers == keys.length)
+			{
+				//runOptimize leaves an empty set with no room at all
+				int newLength = Math.max(1, keys.length * 2);
+				char[] newKeys = new char[newLength];
+				System.arraycopy(keys, 0, newKeys, 0, numContainers);
+				keys = newKeys;
+				
+				Container[] newContainers = new Container[newLength];
+				System.arraycopy(containers, 0, newContainers, 0, numContainers);
+				containers = newContainers;
+			}
+			System.arraycopy(keys, index, keys, index + 1, numContainers - index);
+			System.arraycopy(containers, index, containers, index + 1, numContainers - index);
+			keys[index] = high;
+			containers[index] = new ArrayContainer();
+			numContainers++;
+		}
+		
+		containers[index] = containers[index].add(low);
+	}
+	
+	/**
+	 * Adds every position in another set to this one.
+	 * @param NodeBitmap - positions to add.
+	 */
+	public void or(NodeBitmap other)
+	{
+		int[] values = other.toArray();
+		for (int i = 0; i < values.length; i++)
+			this.add(values[i]);
+	}
+	
+	/**
+	 * Returns true if the position is in the set.
+	 * @param int - the position.
+	 * @return true if the position has been added.
+	 */
+	public boolean contains(int value)
+	{
+		if (value < 0)
+			return false;
+		
+		int index = this.findContainer((char)(value >>> 16));
+		return index >= 0 && containers[index].contains((char)value);
+	}
+	
+	/**
+	 * Returns the number of positions in the set.
+	 * @return int - number of positions.
+	 */
+	public int getCardinality()
+	{
+		int count = 0;
+		for (int i = 0; i < numContainers; i++)
+			count = count + containers[i].getCardinality();
+		return count;
+	}
+	
+	/**
+	 * Returns the number of positions that are in both this set and another.
+	 * @param NodeBitmap - the other set.
+	 * @return int - size of the intersection.
+	 */
+	public int andCardinality(NodeBitmap other)
+	{
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < numContainers && j < other.numContainers)
+		{
+			if (keys[i] < other.keys[j])
+				i++;
+			else if (keys[i] > other.keys[j])
+				j++;
+			else
+			{
+				count = count + containers[i].andCardinality(other.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns every position in the set in increasing order.
+	 * @return int[] - the positions.
+	 */
+	public int[] toArray()
+	{
+		int[] values = new int[this.getCardinality()];
+		int offset = 0;
+		for (int i = 0; i < numContainers; i++)
+			offset = containers[i].fill(values, offset, keys[i] << 16);
+		return values;
+	}
+	
+	/**
+	 * Converts each container to the smallest of its possible forms and
+	 * releases unused space.  The set can still be added to afterwards.
+	 */
+	public void runOptimize()
+	{
+		for (int i = 0; i < numContainers; i++)
+			containers[i] = containers[i].optimize();
+		
+		if (keys.length > numContainers)
+		{
+			char[] newKeys = new char[numContainers];
+			System.arraycopy(keys, 0, newKeys, 0, numContainers);
+			keys = newKeys;
+			
+			Container[] newContainers = new Container[numContainers];
+			System.arraycopy(containers, 0, newContainers, 0, numContainers);
+			containers = newContainers;
+		}
+	}
+	
+	/**
+	 * Returns the index of the container for the given high bits, or
+	 * -(insertion point) - 1 if there is none.
+	 */
+	private int findContainer(char high)
+	{
+		return NodeBitmap.binarySearch(keys, numContainers, high);
+	}
+	
+	/**
+	 * Binary search of the first length values of a sorted array.
+	 */
+	private static int binarySearch(char[] array, int length, char key)
+	{
+		int low = 0;
+		int high = length - 1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			if (array[mid] < key)
+				low = mid + 1;
+			else if (array[mid] > key)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Holds the low 16 bits of the positions sharing the same high bits.
+	 */
+	private static abstract class Container
+	{
+		/**
+		 * Adds a value, returning the container that now holds the values.
+		 */
+		abstract Container add(char value);
+		
+		abstract boolean contains(char value);
+		
+		abstract int getCardinality();
+		
+		abstract int andCardinality(Container other);
+		
+		/**
+		 * Writes the values, combined with the high bits, into the array
+		 * starting at offset and returns the offset after the last one.
+		 */
+		abstract int fill(int[] values, int offset, int high);
+		
+		/**
+		 * Returns the smallest container holding the same values.
+		 */
+		abstract Container optimize();
+	}
+	
+	/**
+	 * Sorted array of values, for containers holding at most ARRAYMAX.
+	 */
+	private static class ArrayContainer extends Container
+	{
+		private char[] values;
+		private int size;
+		
+		ArrayContainer()
+		{
+			values = new char[4];
+			size = 0;
+		}
+		
+		ArrayContainer(char[] someValues, int aSize)
+		{
+			values = someValues;
+			size = aSize;
+		}
+		
+		Container add(char value)
+		{
+			//Positions mostly arrive in increasing order
+			int index;
+			if (size == 0 || values[size - 1] < value)
+				index = -size - 1;
+			else
+				index = NodeBitmap.binarySearch(values, size, value);
+			
+			if (index >= 0)
+				return this;
+			
+			if (size == ARRAYMAX)
+			{
+				BitmapContainer bitmap = new BitmapContainer();
+				for (int i = 0; i < size; i++)
+					bitmap.add(values[i]);
+				return bitmap.add(value);
+			}
+			
+			index = -index - 1;
+			if (size == values.length)
+			{
+				char[] newValues = new char[Math.min(values.length * 2, ARRAYMAX)];
+				System.arraycopy(values, 0, newValues, 0, size);
+				values = newValues;
+			}
+			System.arraycopy(values, index, values, index + 1, size - index);
+			values[index] = value;
+			size++;
+			return this;
+		}
+		
+		boolean contains(char value)
+		{
+			return NodeBitmap.binarySearch(values, size, value) >= 0;
+		}
+		
+		int getCardinality()
+		{
+			return size;
+		}
+		
+		int andCardinality(Container other)
+		{
+			int count = 0;
+			if (other instanceof ArrayContainer)
+			{
+				//Merge the two sorted arrays
+				ArrayContainer otherArray = (ArrayContainer)other;
+				int i = 0;
+				int j = 0;
+				while (i < size && j < otherArray.size)
+				{
+					if (values[i] < otherArray.values[j])
+						i++;
+					else if (values[i] > otherArray.values[j])
+						j++;
+					else
+					{
+						count++;
+						i++;
+						j++;
+					}
+				}
+				return count;
+			}
+			
+			for (int i = 0; i < size; i++)
+			{
+				if (other.contains(values[i]))
+					count++;
+			}
+			return count;
+		}
+		
+		int fill(int[] someValues, int offset, int high)
+		{
+			for (int i = 0; i < size; i++)
+				someValues[offset++] = high | values[i];
+			return offset;
+		}
+		
+		Container optimize()
+		{
+			int numRuns = 0;
+			for (int i = 0; i < size; i++)
+			{
+				if (i == 0 || values[i] != values[i - 1] + 1)
+					numRuns++;
+			}
+			
+			//A run takes two chars
+			if (numRuns * 2 < size)
+				return RunContainer.fromValues(values, size, numRuns);
+			
+			if (values.length > size)
+			{
+				char[] newValues = new char[size];
+				System.arraycopy(values, 0, newValues, 0, size);
+				values = newValues;
+			}
+			return this;
+		}
+	}
+	
+	/**
+	 * One bit for every possible value, for containers holding more than
+	 * ARRAYMAX values.
+	 */
+	private static class BitmapContainer extends Container
+	{
+		private long[] bits;
+		private int cardinality;
+		
+		BitmapContainer()
+		{
+			bits = new long[BITMAPWORDS];
+			cardinality = 0;
+		}
+		
+		Container add(char value)
+		{
+			long mask = 1L << value;
+			int word = value >>> 6;
+			if ((bits[word] & mask) == 0)
+			{
+				bits[word] |= mask;
+				cardinality++;
+			}
+			return this;
+		}
+		
+		boolean contains(char value)
+		{
+			return (bits[value >>> 6] & (1L << value)) != 0;
+		}
+		
+		int getCardinality()
+		{
+			return cardinality;
+		}
+		
+		int andCardinality(Container other)
+		{
+			if (!(other instanceof BitmapContainer))
+				return other.andCardinality(this);
+			
+			long[] otherBits = ((BitmapContainer)other).bits;
+			int count = 0;
+			for (int i = 0; i < BITMAPWORDS; i++)
+				count = count + Long.bitCount(bits[i] & otherBits[i]);
+			return count;
+		}
+		
+		/**
+		 * Returns the number of values from first to last, inclusive, by
+		 * counting the bits of whole words under a mask.
+		 */
+		int rangeCardinality(int first, int last)
+		{
+			int firstWord = first >>> 6;
+			int lastWord = last >>> 6;
+			long firstMask = -1L << first;
+			long lastMask = -1L >>> (63 - (last & 63));
+			if (firstWord == lastWord)
+				return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+			
+			int count = Long.bitCount(bits[firstWord] & firstMask);
+			for (int i = firstWord + 1; i < lastWord; i++)
+				count = count + Long.bitCount(bits[i]);
+			return count + Long.bitCount(bits[lastWord] & lastMask);
+		}
+		
+		int fill(int[] values, int offset, int high)
+		{
+			for (int i = 0; i < BITMAPWORDS; i++)
+			{
+				long word = bits[i];
+				while (word != 0)
+				{
+					values[offset++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+					word = word & (word - 1);
+				}
+			}
+			return offset;
+		}
+		
+		Container optimize()
+		{
+			int numRuns = 0;
+			boolean inRun = false;
+			for (int i = 0; i < BITMAPWORDS; i++)
+			{
+				long word = bits[i];
+				for (int b = 0; b < 64; b++)
+				{
+					boolean set = (word & (1L << b)) != 0;
+					if (set && !inRun)
+						numRuns++;
+					inRun = set;
+				}
+			}
+			
+			//A run takes two chars, the bitmap 4096 chars
+			if (numRuns * 2 >= BITMAPWORDS * 4)
+				return this;
+			
+			char[] values = new char[cardinality];
+			int offset = 0;
+			for (int i = 0; i < BITMAPWORDS; i++)
+			{
+				long word = bits[i];
+				while (word != 0)
+				{
+					values[offset++] = (char)((i << 6) | Long.numberOfTrailingZeros(word));
+					word = word & (word - 1);
+				}
+			}
+			return RunContainer.fromValues(values, cardinality, numRuns);
+		}
+	}
+	
+	/**
+	 * Runs of consecutive values, each stored as its first value and its
+	 * length minus one.
+	 */
+	private static class RunContainer extends Container
+	{
+		private char[] starts;
+		private char[] lengths;
+		private int cardinality;
+		
+		RunContainer(char[] someStarts, char[] someLengths, int aCardinality)
+		{
+			starts = someStarts;
+			lengths = someLengths;
+			cardinality = aCardinality;
+		}
+		
+		/**
+		 * Builds a RunContainer from sorted values with a known number of runs.
+		 */
+		static RunContainer fromValues(char[] values, int size, int numRuns)
+		{
+			char[] starts = new char[numRuns];
+			char[] lengths = new char[numRuns];
+			int run = -1;
+			for (int i = 0; i < size; i++)
+			{
+				if (i == 0 || values[i] != values[i - 1] + 1)
+				{
+					run++;
+					starts[run] = values[i];
+				}
+				else
+					lengths[run]++;
+			}
+			return new RunContainer(starts, lengths, size);
+		}
+		
+		Container add(char value)
+		{
+			if (this.contains(value))
+				return this;
+			
+			//Runs are only made by optimize, go back to a form that can grow
+			Container expanded;
+			if (cardinality < ARRAYMAX)
+				expanded = new ArrayContainer(new char[cardinality + 1], 0);
+			else
+				expanded = new BitmapContainer();
+			
+			for (int i = 0; i < starts.length; i++)
+			{
+				for (int v = starts[i]; v <= starts[i] + lengths[i]; v++)
+					expanded = expanded.add((char)v);
+			}
+			return expanded.add(value);
+		}
+		
+		boolean contains(char value)
+		{
+			int index = NodeBitmap.binarySearch(starts, starts.length, value);
+			if (index >= 0)
+				return true;
+			
+			//Run starting before the value
+			index = -index - 2;
+			return index >= 0 && value <= starts[index] + lengths[index];
+		}
+		
+		int getCardinality()
+		{
+			return cardinality;
+		}
+		
+		int andCardinality(Container other)
+		{
+			if (other instanceof ArrayContainer)
+				return other.andCardinality(this);
+			
+			int count = 0;
+			if (other instanceof BitmapContainer)
+			{
+				//Count the bits under each run a word at a time
+				BitmapContainer bitmap = (BitmapContainer)other;
+				for (int i = 0; i < starts.length; i++)
+					count = count + bitmap.rangeCardinality(starts[i], starts[i] + lengths[i]);
+				return count;
+			}
+			
+			//Add up the overlap of each pair of runs that meet
+			RunContainer otherRuns = (RunContainer)other;
+			int i = 0;
+			int j = 0;
+			while (i < starts.length && j < otherRuns.starts.length)
+			{
+				int end = starts[i] + lengths[i];
+				int otherEnd = otherRuns.starts[j] + otherRuns.lengths[j];
+				int overlap = Math.min(end, otherEnd) - Math.max(starts[i], otherRuns.starts[j]) + 1;
+				if (overlap > 0)
+					count = count + overlap;
+				
+				if (end < otherEnd)
+					i++;
+				else
+					j++;
+			}
+			return count;
+		}
+		
+		int fill(int[] values, int offset, int high)
+		{
+			for (int i = 0; i < starts.length; i++)
+			{
+				for (int v = starts[i]; v <= starts[i] + lengths[i]; v++)
+					values[offset++] = high | v;
+			}
+			return offset;
+		}
+		
+		Container optimize()
+		{
+			return this;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ File: NodeTokenCache.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.HashMap;
+
+/**
+ * The NodeTokenCache class holds the distinct word IDs found in the value
+ * of each node attribute, so that a value is only fetched and tokenized
+ * again when it changes.  It is shared by every cloud in a network and is
+ * emptied whenever the delimiters it was built with change.  Nodes that
+ * share a value within one counting pass share one tokenization, but the
+ * values themselves are not kept.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class NodeTokenCache
+{
+	//VARIABLES
+	private HashMap<String, HashMap<String, int[]>> nodeTokens; //node ID to attribute to word IDs
+	private int delimiterVersion; //version of the delimiters used for the cached words
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty NodeTokenCache.
+	 */
+	public NodeTokenCache()
+	{
+		nodeTokens = new HashMap<String, HashMap<String, int[]>>();
+		delimiterVersion = -1;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Makes sure the cached words were found with the given delimiters,
+	 * emptying the cache if they were not.  Called before each counting pass.
+	 * @param int - version of the tokenizer about to be used.
+	 */
+	public void checkVersion(int version)
+	{
+		if (version != delimiterVersion)
+		{
+			this.clear();
+			delimiterVersion = version;
+		}
+	}
+	
+	/**
+	 * Returns the cached word IDs for a node attribute, or null if they
+	 * have not been stored.
+	 * @param String - ID of the node.
+	 * @param String - name of the attribute.
+	 * @return int[] - distinct word IDs in order of first appearance.
+	 */
+	public int[] get(String nodeID, String attributeName)
+	{
+		HashMap<String, int[]> attributes = nodeTokens.get(nodeID);
+		if (attributes == null)
+			return null;
+		
+		return attributes.get(attributeName);
+	}
+	
+	/**
+	 * Stores the word IDs for a node attribute.
+	 * @param String - ID of the node.
+	 * @param String - name of the attribute.
+	 * @param int[] - distinct word IDs in order of first appearance.
+	 */
+	public void put(String nodeID, String attributeName, int[] wordIds)
+	{
+		HashMap<String, int[]> attributes = nodeTokens.get(nodeID);
+		if (attributes == null)
+		{
+			attributes = new HashMap<String, int[]>();
+			nodeTokens.put(nodeID, attributes);
+		}
+		attributes.put(attributeName, wordIds);
+	}
+	
+	/**
+	 * Removes the stored word IDs for a single node attribute, called when
+	 * the value of that attribute changes.
+	 * @param String - ID of the node.
+	 * @param String - name of the attribute.
+	 */
+	public void invalidate(String nodeID, String attributeName)
+	{
+		HashMap<String, int[]> attributes = nodeTokens.get(nodeID);
+		if (attributes == null)
+			return;
+		
+		attributes.remove(attributeName);
+		if (attributes.isEmpty())
+			nodeTokens.remove(nodeID);
+	}
+	
+	/**
+	 * Removes everything from the cache.
+	 */
+	public void clear()
+	{
+		nodeTokens.clear();
+	}
+}
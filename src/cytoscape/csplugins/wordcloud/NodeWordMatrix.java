@@ -0,0 +1,284 @@
+/*
+ File: NodeWordMatrix.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * The NodeWordMatrix class is the node by word matrix of one attribute of
+ * a network, stored row by row in compressed sparse row form.  Row r holds
+ * the IDs of the counted words of the node at position r of the network's
+ * node list, in the order they appear, so consecutive entries of a row are
+ * exactly the word pairs counted for that node.  The same matrix stored
+ * column by column is the WordPostings of the attribute.
+ * <p>
+ * The word and pair counts of any set of nodes are the product of the
+ * matrix with the vector of those nodes, which is worked out by adding up
+ * their rows without reading or tokenizing any node values.  Rows are
+ * counted with the network's filter, so a matrix is dropped along with the
+ * rest of the network counts whenever the filter changes.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class NodeWordMatrix
+{
+	//VARIABLES
+	private int firstRow; //position of the node in the first row
+	private int numRows;
+	private int[] rowStart; //index in wordIds of the first word of each row
+	private int[] wordIds; //word IDs of every row, one row after another
+	private int numEntries;
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty matrix whose rows start at the given position.
+	 * @param int - position of the node in the first row.
+	 */
+	public NodeWordMatrix(int first)
+	{
+		firstRow = first;
+		numRows = 0;
+		rowStart = new int[17];
+		wordIds = new int[64];
+		numEntries = 0;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Adds the row of the node at a position.  Rows must be added in order
+	 * of position, and rows that are skipped are left empty.
+	 * @param int - position of the node.
+	 * @param int[] - word IDs of the node.
+	 * @param int - number of word IDs to take from the array.
+	 */
+	public void addRow(int position, int[] words, int length)
+	{
+		this.skipTo(position);
+		
+		if (numEntries + length > wordIds.length)
+		{
+			int[] newIds = new int[Math.max(wordIds.length * 2, numEntries + length)];
+			System.arraycopy(wordIds, 0, newIds, 0, numEntries);
+			wordIds = newIds;
+		}
+		System.arraycopy(words, 0, wordIds, numEntries, length);
+		numEntries = numEntries + length;
+		this.endRow();
+	}
+	
+	/**
+	 * Adds the rows of a matrix whose first row follows the last row of
+	 * this one.
+	 * @param NodeWordMatrix - the rows to add.
+	 */
+	public void addAll(NodeWordMatrix later)
+	{
+		this.skipTo(later.firstRow);
+		
+		for (int row = 0; row < later.numRows; row++)
+		{
+			int start = later.rowStart[row];
+			int length = later.rowStart[row + 1] - start;
+			
+			if (numEntries + length > wordIds.length)
+			{
+				int[] newIds = new int[Math.max(wordIds.length * 2, numEntries + later.numEntries)];
+				System.arraycopy(wordIds, 0, newIds, 0, numEntries);
+				wordIds = newIds;
+			}
+			System.arraycopy(later.wordIds, start, wordIds, numEntries, length);
+			numEntries = numEntries + length;
+			this.endRow();
+		}
+	}
+	
+	/**
+	 * Adds the word and pair counts of a set of nodes: the product of the
+	 * matrix with the vector holding how often each node is selected.  A
+	 * position listed twice is counted twice.
+	 * @param int[] - positions of the nodes.
+	 * @param IntIntHashMap - counts to add each word to, or null.
+	 * @param LongIntHashMap - counts to add each word pair to, or null.
+	 */
+	public void multiply(int[] positions, IntIntHashMap wordCounts, LongIntHashMap pairCounts)
+	{
+		for (int i = 0; i < positions.length; i++)
+		{
+			int row = positions[i] - firstRow;
+			if (row < 0 || row >= numRows)
+				continue;
+			
+			this.addRowCounts(row, wordCounts, pairCounts);
+		}
+	}
+	
+	/**
+	 * Takes the word and pair counts of a set of nodes back off counts they
+	 * were added to by multiply, removing the words and pairs whose count
+	 * drops to zero.
+	 * @param int[] - positions of the nodes.
+	 * @param IntIntHashMap - counts to take each word off, or null.
+	 * @param LongIntHashMap - counts to take each word pair off, or null.
+	 */
+	public void subtract(int[] positions, IntIntHashMap wordCounts, LongIntHashMap pairCounts)
+	{
+		for (int i = 0; i < positions.length; i++)
+		{
+			int row = positions[i] - firstRow;
+			if (row < 0 || row >= numRows)
+				continue;
+			
+			int start = rowStart[row];
+			int end = rowStart[row + 1];
+			for (int j = start; j < end; j++)
+			{
+				if (wordCounts != null && wordCounts.add(wordIds[j], -1) <= 0)
+					wordCounts.remove(wordIds[j]);
+				if (pairCounts != null && j > start)
+				{
+					long pair = LongIntHashMap.pairKey(wordIds[j - 1], wordIds[j]);
+					if (pairCounts.add(pair, -1) <= 0)
+						pairCounts.remove(pair);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds the word counts of many sets of nodes in a single pass over the
+	 * rows: the product of the matrix with one vector for each set.  The
+	 * sets containing the node at position p are listed in members from
+	 * memberStart[p] up to memberStart[p + 1], once for each time the node
+	 * is in the set.
+	 * @param int[] - index in members of the first set of each position,
+	 * with one more entry for the end of the last position.
+	 * @param int[] - index of each set containing each position.
+	 * @param IntIntHashMap[] - counts to add the words of each set to.
+	 */
+	public void multiply(int[] memberStart, int[] members, IntIntHashMap[] wordCounts)
+	{
+		int numPositions = memberStart.length - 1;
+		for (int row = 0; row < numRows && firstRow + row < numPositions; row++)
+		{
+			int position = firstRow + row;
+			for (int k = memberStart[position]; k < memberStart[position + 1]; k++)
+				this.addRowCounts(row, wordCounts[members[k]], null);
+		}
+	}
+	
+	/**
+	 * Adds the pair counts of every node in the matrix.
+	 * @param LongIntHashMap - counts to add each word pair to.
+	 */
+	public void countPairs(LongIntHashMap pairCounts)
+	{
+		for (int row = 0; row < numRows; row++)
+			this.addRowCounts(row, null, pairCounts);
+	}
+	
+	/**
+	 * Returns the word IDs of the node at a position.
+	 * @param int - position of the node.
+	 * @return int[] - the counted words of the node, in order.
+	 */
+	public int[] getRow(int position)
+	{
+		int row = position - firstRow;
+		if (row < 0 || row >= numRows)
+			return new int[0];
+		
+		int[] words = new int[rowStart[row + 1] - rowStart[row]];
+		System.arraycopy(wordIds, rowStart[row], words, 0, words.length);
+		return words;
+	}
+	
+	/**
+	 * Returns the number of words stored in the matrix.
+	 * @return int - number of entries in every row.
+	 */
+	public int getNumEntries()
+	{
+		return numEntries;
+	}
+	
+	/**
+	 * Shrinks the arrays to the rows that were added.
+	 */
+	public void trim()
+	{
+		if (wordIds.length > numEntries)
+		{
+			int[] newIds = new int[numEntries];
+			System.arraycopy(wordIds, 0, newIds, 0, numEntries);
+			wordIds = newIds;
+		}
+		if (rowStart.length > numRows + 1)
+		{
+			int[] newStart = new int[numRows + 1];
+			System.arraycopy(rowStart, 0, newStart, 0, numRows + 1);
+			rowStart = newStart;
+		}
+	}
+	
+	/**
+	 * Adds the words and consecutive pairs of a row to the counts that are
+	 * not null.
+	 */
+	private void addRowCounts(int row, IntIntHashMap wordCounts, LongIntHashMap pairCounts)
+	{
+		int start = rowStart[row];
+		int end = rowStart[row + 1];
+		for (int j = start; j < end; j++)
+		{
+			if (wordCounts != null)
+				wordCounts.add(wordIds[j], 1);
+			if (pairCounts != null && j > start)
+				pairCounts.add(LongIntHashMap.pairKey(wordIds[j - 1], wordIds[j]), 1);
+		}
+	}
+	
+	/**
+	 * Adds empty rows up to the given position.
+	 */
+	private void skipTo(int position)
+	{
+		while (firstRow + numRows < position)
+			this.endRow();
+	}
+	
+	/**
+	 * Ends the current row at the last word added.
+	 */
+	private void endRow()
+	{
+		if (numRows + 2 > rowStart.length)
+		{
+			int[] newStart = new int[rowStart.length * 2];
+			System.arraycopy(rowStart, 0, newStart, 0, numRows + 1);
+			rowStart = newStart;
+		}
+		numRows++;
+		rowStart[numRows] = numEntries;
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ File: ParallelTokenizer.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The ParallelTokenizer class tokenizes a batch of attribute values, splitting
+ * large batches into chunks that are tokenized on all available processors.
+ * Each chunk collects its words in a dictionary of its own, and the chunks are
+ * then added to the dictionary one after another in batch order.
+ * This gives every word the same ID it would get if the batch had been
+ * tokenized on a single thread, so counting results do not depend on timing.
+ * Attribute values must be fetched before the batch is run, since only the
+ * tokenizing happens off the calling thread.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class ParallelTokenizer
+{
+	//VARIABLES
+	private WordTokenizer tokenizer;
+	private WordDictionary dictionary;
+	private List<List<String>> values; //distinct values to tokenize, in order added
+	private HashMap<List<String>, Integer> valueIndex; //position of each value
+	private int[][] wordIds; //result for each value
+	
+	//Batches smaller than this are not worth handing to other threads
+	private static final int MINPARALLELVALUES = 2000;
+	private static final int CHUNKSPERTHREAD = 4;
+	
+	private static ExecutorService executor;
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates an empty batch.
+	 * @param WordTokenizer - tokenizer built from the current delimiters.
+	 * @param WordDictionary - dictionary the word IDs belong to.
+	 */
+	public ParallelTokenizer(WordTokenizer aTokenizer, WordDictionary aDictionary)
+	{
+		tokenizer = aTokenizer;
+		dictionary = aDictionary;
+		values = new ArrayList<List<String>>();
+		valueIndex = new HashMap<List<String>, Integer>();
+	}
+	
+	//METHODS
+	
+	/**
+	 * Adds a value to the batch.  A value equal to one already added is only
+	 * tokenized once.
+	 * @param List - strings making up the attribute value.
+	 * @return int - position of the value, used to get its word IDs.
+	 */
+	public int add(List<String> nodeValues)
+	{
+		Integer index = valueIndex.get(nodeValues);
+		if (index == null)
+		{
+			index = values.size();
+			values.add(nodeValues);
+			valueIndex.put(nodeValues, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Tokenizes every value in the batch.
+	 */
+	public void run()
+	{
+		int numValues = values.size();
+		wordIds = new int[numValues][];
+		
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		if (numThreads < 2 || numValues < MINPARALLELVALUES)
+		{
+			this.tokenizeChunk(0, numValues, dictionary, wordIds, 0);
+			return;
+		}
+		
+		//Tokenize the chunks at the same time, each into its own dictionary
+		int numChunks = numThreads * CHUNKSPERTHREAD;
+		int chunkSize = (numValues + numChunks - 1) / numChunks;
+		List<WordDictionary> chunkDictionaries = new ArrayList<WordDictionary>();
+		List<Future<int[][]>> futures = new ArrayList<Future<int[][]>>();
+		for (int start = 0; start < numValues; start += chunkSize)
+		{
+			final int chunkStart = start;
+			final int chunkEnd = Math.min(start + chunkSize, numValues);
+			final WordDictionary chunkDictionary = new WordDictionary();
+			chunkDictionaries.add(chunkDictionary);
+			futures.add(ParallelTokenizer.getExecutor().submit(new Callable<int[][]>()
+			{
+				public int[][] call()
+				{
+					int[][] chunkIds = new int[chunkEnd - chunkStart][];
+					tokenizeChunk(chunkStart, chunkEnd, chunkDictionary, chunkIds, 0);
+					return chunkIds;
+				}
+			}));
+		}
+		
+		//Move each chunk into the network dictionary in order
+		for (int i = 0; i < futures.size(); i++)
+		{
+			int chunkStart = i * chunkSize;
+			int chunkEnd = Math.min(chunkStart + chunkSize, numValues);
+			
+			int[][] chunkIds;
+			try
+			{
+				chunkIds = futures.get(i).get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				chunkIds = null;
+			}
+			catch (ExecutionException e)
+			{
+				throw new RuntimeException("Tokenizing node values failed", e.getCause());
+			}
+			
+			//Do the chunk here if waiting for its worker was interrupted
+			if (chunkIds == null)
+			{
+				futures.get(i).cancel(true);
+				this.tokenizeChunk(chunkStart, chunkEnd, dictionary, wordIds, chunkStart);
+				continue;
+			}
+			
+			WordDictionary chunkDictionary = chunkDictionaries.get(i);
+			int[] globalIds = new int[chunkDictionary.size()];
+			for (int id = 0; id < globalIds.length; id++)
+				globalIds[id] = dictionary.getId(chunkDictionary.getWord(id));
+			
+			for (int j = 0; j < chunkIds.length; j++)
+			{
+				int[] curIds = chunkIds[j];
+				for (int k = 0; k < curIds.length; k++)
+					curIds[k] = globalIds[curIds[k]];
+				wordIds[chunkStart + j] = curIds;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of distinct values in the batch.
+	 * @return int - number of values.
+	 */
+	public int size()
+	{
+		return values.size();
+	}
+	
+	/**
+	 * Returns a value that was added to the batch.
+	 * @param int - position of the value.
+	 * @return List - strings making up the attribute value.
+	 */
+	public List<String> getValue(int index)
+	{
+		return values.get(index);
+	}
+	
+	/**
+	 * Returns the distinct word IDs of a value once the batch has been run.
+	 * @param int - position of the value.
+	 * @return int[] - word IDs in order of first appearance.
+	 */
+	public int[] getWordIds(int index)
+	{
+		return wordIds[index];
+	}
+	
+	/**
+	 * Tokenizes a range of the values into the given dictionary, storing the
+	 * word IDs of value start onwards from position offset of results.
+	 */
+	private void tokenizeChunk(int start, int end, WordDictionary aDictionary, 
+			int[][] results, int offset)
+	{
+		WordIdCollector wordSet = new WordIdCollector(aDictionary);
+		for (int i = start; i < end; i++)
+		{
+			wordSet.clear();
+			tokenizer.tokenize(values.get(i), wordSet);
+			results[i - start + offset] = wordSet.toArray();
+		}
+	}
+	
+	/**
+	 * Returns the pool of threads shared by all batches and by
+	 * NetworkCounter, creating it the first time it is needed.  The threads
+	 * do not keep Cytoscape running.
+	 */
+	static synchronized ExecutorService getExecutor()
+	{
+		if (executor == null)
+		{
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory()
+			{
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r, "WordCloud worker");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+}
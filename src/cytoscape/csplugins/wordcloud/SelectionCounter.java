@@ -0,0 +1,260 @@
+/*
+ File: SelectionCounter.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import cytoscape.CyNode;
+import cytoscape.Cytoscape;
+import cytoscape.data.CyAttributes;
+
+/**
+ * The SelectionCounter class counts the selected words of many clouds on
+ * the same network at once, such as one cloud for each module of a
+ * network.  Every cloud borrowing the same network counts shares the same
+ * node by word matrices, so the rows of the matrices are read once and the
+ * words of each node are added to the counts of every cloud whose
+ * selection contains it.  Clouds that can not be counted this way, because
+ * they count other attributes or select nodes that are not in the network,
+ * are counted on their own.
+ * <p>
+ * Clouds can also be made for every value of a node attribute, such as a
+ * cluster ID or community label, so each group of nodes gets its own cloud
+ * from the same single pass.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class SelectionCounter
+{
+	//VARIABLES
+	private List<CloudParameters> clouds;
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates a SelectionCounter for a set of clouds on one network.  The
+	 * selected nodes and attributes of each cloud must already be set.
+	 * @param List - the clouds to count.
+	 */
+	public SelectionCounter(List<CloudParameters> cloudList)
+	{
+		clouds = cloudList;
+	}
+	
+	//METHODS
+	
+	/**
+	 * Creates a cloud for each selection, registers it with the network
+	 * and counts the selected words of all of them in one pass.  Each cloud
+	 * takes its attributes, network weight, style, maximum number of words
+	 * and cluster cutoff from the template, such as a cloud that has
+	 * retrieved the values of the input panel.
+	 * @param SemanticSummaryParameters - the network the clouds are on.
+	 * @param List - IDs of the selected nodes of each cloud.
+	 * @param CloudParameters - cloud to copy the settings of.
+	 * @return List - the new clouds, in the order of the selections.
+	 */
+	public static List<CloudParameters> createClouds(SemanticSummaryParameters params, 
+			List<List<String>> selections, CloudParameters template)
+	{
+		List<CloudParameters> newClouds = new ArrayList<CloudParameters>();
+		for (int i = 0; i < selections.size(); i++)
+		{
+			List<String> nodeNames = selections.get(i);
+			
+			CloudParameters cloudParams = new CloudParameters();
+			cloudParams.setCloudNum(params.getCloudCount());
+			cloudParams.setCloudName(params.getNextCloudName());
+			cloudParams.setNetworkParams(params);
+			SelectionCounter.copySettings(template, cloudParams);
+			cloudParams.setSelectedNodes(nodeNames);
+			cloudParams.setSelectedNumNodes(nodeNames.size());
+			
+			params.addCloud(cloudParams.getCloudName(), cloudParams);
+			newClouds.add(cloudParams);
+		}
+		
+		SelectionCounter counter = new SelectionCounter(newClouds);
+		counter.run();
+		
+		return newClouds;
+	}
+	
+	/**
+	 * Creates a cloud for each distinct value of a node attribute, selecting
+	 * the network nodes with that value, and counts the selected words of
+	 * all of them in one pass.  A node with a list value is in the group of
+	 * each element of the list.  Nodes without a value are not in any group.
+	 * Each cloud takes its attributes and settings from the template, as for
+	 * createClouds.
+	 * @param SemanticSummaryParameters - the network the clouds are on.
+	 * @param String - name of the attribute to group the nodes by.
+	 * @param CloudParameters - cloud to copy the settings of.
+	 * @return LinkedHashMap - the new cloud for each value, in the order the
+	 * values first appear in the network.
+	 */
+	public static LinkedHashMap<String, CloudParameters> createGroupClouds(
+			SemanticSummaryParameters params, String groupAttribute, CloudParameters template)
+	{
+		CyAttributes cyNodeAttrs = Cytoscape.getNodeAttributes();
+		List<String> networkNodes = params.getNetworkNodes();
+		
+		//Find the nodes with each value
+		LinkedHashMap<String, LinkedHashSet<String>> groups = 
+			new LinkedHashMap<String, LinkedHashSet<String>>();
+		for (int i = 0; i < networkNodes.size(); i++)
+		{
+			String curNodeID = networkNodes.get(i);
+			CyNode curNode = Cytoscape.getCyNode(curNodeID);
+			if (curNode == null)
+				continue;
+			
+			Object value = cyNodeAttrs.getAttribute(curNode.getIdentifier(), groupAttribute);
+			if (value instanceof List)
+			{
+				for (Iterator iter = ((List)value).iterator(); iter.hasNext();)
+					SelectionCounter.addToGroup(groups, iter.next(), curNodeID);
+			}
+			else
+				SelectionCounter.addToGroup(groups, value, curNodeID);
+		}
+		
+		//One cloud for each group
+		List<String> values = new ArrayList<String>(groups.keySet());
+		List<List<String>> selections = new ArrayList<List<String>>();
+		for (int i = 0; i < values.size(); i++)
+			selections.add(new ArrayList<String>(groups.get(values.get(i))));
+		
+		List<CloudParameters> newClouds = SelectionCounter.createClouds(params, selections, 
+				template);
+		
+		LinkedHashMap<String, CloudParameters> groupClouds = 
+			new LinkedHashMap<String, CloudParameters>();
+		for (int i = 0; i < values.size(); i++)
+			groupClouds.put(values.get(i), newClouds.get(i));
+		
+		return groupClouds;
+	}
+	
+	/**
+	 * Copies the counting and display settings of a template to a new cloud.
+	 */
+	private static void copySettings(CloudParameters template, CloudParameters cloudParams)
+	{
+		ArrayList<String> attributes = new ArrayList<String>(template.getAttributeNames());
+		cloudParams.setAttributeNames(attributes);
+		cloudParams.setNetWeightFactor(template.getNetWeightFactor());
+		cloudParams.setUseNetNormal(template.getUseNetNormal());
+		cloudParams.setMaxWords(template.getMaxWords());
+		cloudParams.setClusterCutoff(template.getClusterCutoff());
+		cloudParams.setDisplayStyle(template.getDisplayStyle());
+		cloudParams.setNetworkNumNodes(cloudParams.getNetworkParams().getNetworkNodes().size() 
+				* attributes.size());
+	}
+	
+	/**
+	 * Adds a node to the group of an attribute value, ignoring empty values.
+	 */
+	private static void addToGroup(LinkedHashMap<String, LinkedHashSet<String>> groups, 
+			Object value, String nodeID)
+	{
+		if (value == null)
+			return;
+		
+		String key = value.toString();
+		LinkedHashSet<String> group = groups.get(key);
+		if (group == null)
+		{
+			group = new LinkedHashSet<String>();
+			groups.put(key, group);
+		}
+		group.add(nodeID);
+	}
+	
+	/**
+	 * Counts the selected words of every cloud.
+	 */
+	public void run()
+	{
+		//Group the clouds sharing the first matrices, count the rest alone
+		NodeWordMatrix[] matrices = null;
+		List<CloudParameters> shared = new ArrayList<CloudParameters>();
+		List<int[]> sharedPositions = new ArrayList<int[]>();
+		for (int i = 0; i < clouds.size(); i++)
+		{
+			CloudParameters curCloud = clouds.get(i);
+			int[] positions = curCloud.getSelectedPositions();
+			
+			if (positions != null && matrices == null)
+				matrices = curCloud.getWordMatrices();
+			
+			if (positions != null && curCloud.getWordMatrices() == matrices)
+			{
+				shared.add(curCloud);
+				sharedPositions.add(positions);
+			}
+			else
+				curCloud.updateSelectedCounts();
+		}
+		
+		if (shared.isEmpty())
+			return;
+		
+		//List the clouds selecting each network position
+		int numPositions = shared.get(0).getNetworkParams().getNetworkNodes().size();
+		int[] memberStart = new int[numPositions + 1];
+		for (int i = 0; i < sharedPositions.size(); i++)
+		{
+			int[] positions = sharedPositions.get(i);
+			for (int j = 0; j < positions.length; j++)
+				memberStart[positions[j] + 1]++;
+		}
+		for (int p = 0; p < numPositions; p++)
+			memberStart[p + 1] = memberStart[p + 1] + memberStart[p];
+		
+		int[] members = new int[memberStart[numPositions]];
+		int[] next = new int[numPositions];
+		System.arraycopy(memberStart, 0, next, 0, numPositions);
+		for (int i = 0; i < sharedPositions.size(); i++)
+		{
+			int[] positions = sharedPositions.get(i);
+			for (int j = 0; j < positions.length; j++)
+				members[next[positions[j]]++] = i;
+		}
+		
+		//One pass over the rows of each attribute
+		IntIntHashMap[] wordCounts = new IntIntHashMap[shared.size()];
+		for (int i = 0; i < wordCounts.length; i++)
+			wordCounts[i] = new IntIntHashMap();
+		for (int i = 0; i < matrices.length; i++)
+			matrices[i].multiply(memberStart, members, wordCounts);
+		
+		for (int i = 0; i < shared.size(); i++)
+			shared.get(i).useSelectedCounts(wordCounts[i]);
+	}
+}
@@ -148,19 +148,20 @@ public class SemanticSummaryClusterBuilder
 		
 		//Word count
 		Integer wordCount = 0;
+		WordDictionary dictionary = WordDictionary.getInstance();
 		
 		for(int i = 0; i < clusters.getClusters().size(); i++)
 		{
 			SingleWordCluster curCluster = clusters.getClusters().get(i);
-			ArrayList<String> curList = curCluster.getWordList();
+			ArrayList<Integer> curList = curCluster.getWordIds();
 			Color clusterColor = getClusterColor(i);
 			
 			//Iterate through the words
 			for (int j = 0; j < curList.size(); j++)
 			{
-				String curWord = curList.get(j);
+				int curWord = curList.get(j);
 				Integer fontSize = params.calculateFontSize(curWord);
-				CloudWordInfo curInfo = new CloudWordInfo(curWord, fontSize);
+				CloudWordInfo curInfo = new CloudWordInfo(dictionary.getWord(curWord), fontSize);
 				curInfo.setCloudParameters(params);
 				curInfo.setTextColor(clusterColor);
 				curInfo.setCluster(i);
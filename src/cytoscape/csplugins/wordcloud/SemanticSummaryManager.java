@@ -459,7 +459,9 @@ public class SemanticSummaryManager implements PropertyChangeListener, MultiHash
 				
 				if (cyNetwork.containsNode(curNode))
 				{
-					params.networkChanged();
+					//Only this value needs to be tokenized again
+					params.getTokenCache().invalidate(objectKey, attributeName);
+					params.attributeChanged(attributeName);
 				}
 			}
 		}
@@ -468,8 +470,26 @@ public class SemanticSummaryManager implements PropertyChangeListener, MultiHash
 
 	public void attributeValueRemoved(String objectKey, String attributeName, Object[] keyIntoValue,
 			Object attributeValue) {
-		// TODO Auto-generated method stub
 		
+		CyNode curNode = Cytoscape.getCyNode(objectKey, false);
+		if (curNode != null)
+		{
+			HashMap<String, SemanticSummaryParameters> networks = 
+				SemanticSummaryManager.getInstance().getCyNetworkList();
+			
+			for (Iterator<SemanticSummaryParameters> iter = networks.values().iterator(); iter.hasNext();)
+			{
+				SemanticSummaryParameters params = iter.next();
+				CyNetwork cyNetwork = Cytoscape.getNetwork(params.getNetworkName());
+				
+				if (cyNetwork.containsNode(curNode))
+				{
+					//Forget the words of the removed value
+					params.getTokenCache().invalidate(objectKey, attributeName);
+					params.attributeChanged(attributeName);
+				}
+			}
+		}
 	}
 	
 }
@@ -26,6 +26,7 @@ import cytoscape.CyNode;
 
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -65,6 +66,17 @@ public class SemanticSummaryParameters
 	private WordFilter filter;
 	private WordDelimiters delimiters;
 	
+	//Word IDs of every node value in this network
+	private NodeTokenCache tokenCache;
+	
+	//Counts and postings of each attribute, added up for each cloud
+	private HashMap<String, NetworkCounts> attributeCounts;
+	private HashMap<String, int[]> nodePositions; //positions of each node in nodeList
+	
+	//Network counts lent to clouds, keyed by getNetworkCountsKey
+	private HashMap<String, NetworkCounts> countStore;
+	private static final char controlChar = '\u001F';
+	
 	//CONSTRUCTORS
 	
 	/**
@@ -76,6 +88,9 @@ public class SemanticSummaryParameters
 		this.nodeList = new ArrayList<String>();
 		this.filter = new WordFilter();
 		this.delimiters = new WordDelimiters();
+		this.tokenCache = new NodeTokenCache();
+		this.attributeCounts = new HashMap<String, NetworkCounts>();
+		this.countStore = new HashMap<String, NetworkCounts>();
 	}
 	
 	/**
@@ -141,7 +156,10 @@ public class SemanticSummaryParameters
 	public void removeCloud(String name)
 	{
 		if (clouds.containsKey(name))
+		{
+			clouds.get(name).releaseNetworkCounts();
 			clouds.remove(name);
+		}
 	}
 	
 	/**
@@ -176,6 +194,9 @@ public class SemanticSummaryParameters
 	 */
 	public void networkChanged()
 	{
+		attributeCounts.clear();
+		countStore.clear();
+		
 		Set<String> cloudNames = clouds.keySet();
 		Iterator<String> iter = cloudNames.iterator();
 		while (iter.hasNext())
@@ -188,6 +209,182 @@ public class SemanticSummaryParameters
 		}
 	}
 	
+	/**
+	 * Tells the clouds counting an attribute that its values have changed
+	 * and that they need to re-initialize.  Only the counts of that
+	 * attribute are dropped, so the counts of every other attribute are
+	 * kept along with their postings and matrices.
+	 * @param String - name of the attribute that changed.
+	 */
+	public void attributeChanged(String attributeName)
+	{
+		for (Iterator<String> iter = attributeCounts.keySet().iterator(); iter.hasNext();)
+		{
+			if (SemanticSummaryParameters.keyHasAttribute(iter.next(), attributeName))
+				iter.remove();
+		}
+		for (Iterator<String> iter = countStore.keySet().iterator(); iter.hasNext();)
+		{
+			if (SemanticSummaryParameters.keyHasAttribute(iter.next(), attributeName))
+				iter.remove();
+		}
+		
+		for (Iterator<CloudParameters> iter = clouds.values().iterator(); iter.hasNext();)
+		{
+			CloudParameters cloudParams = iter.next();
+			if (!cloudParams.getAttributeNames().contains(attributeName))
+				continue;
+			
+			cloudParams.setCountInitialized(false);
+			cloudParams.setSelInitialized(false);
+			cloudParams.setRatiosInitialized(false);
+		}
+	}
+	
+	/**
+	 * Returns true if a key made by getNetworkCountsKey includes the counts
+	 * of an attribute.
+	 */
+	private static boolean keyHasAttribute(String key, String attributeName)
+	{
+		String name = attributeName + controlChar;
+		return key.startsWith(name) || key.indexOf(controlChar + name) >= 0;
+	}
+	
+	/**
+	 * Returns the network counts of a single attribute made with the current
+	 * filter and delimiters, or null if no cloud has counted it yet.  The
+	 * counts for a set of attributes are the sum of the counts of each.
+	 * @param String - name of the attribute.
+	 * @return NetworkCounts - counts of the attribute, or null.
+	 */
+	public NetworkCounts getAttributeCounts(String attributeName)
+	{
+		return attributeCounts.get(this.getNetworkCountsKey(Collections.singletonList(attributeName)));
+	}
+	
+	/**
+	 * Stores the network counts of a single attribute, made with the
+	 * current filter and delimiters, so every cloud can add them up.  They
+	 * are kept until the network changes.
+	 * @param String - name of the attribute.
+	 * @param NetworkCounts - counts of the attribute.
+	 */
+	public void putAttributeCounts(String attributeName, NetworkCounts counts)
+	{
+		attributeCounts.put(this.getNetworkCountsKey(Collections.singletonList(attributeName)), counts);
+	}
+	
+	/**
+	 * Returns the postings of an attribute, if it has been counted with the
+	 * current filter and delimiters.
+	 * @param String - name of the attribute.
+	 * @return WordPostings - nodes containing each word, or null.
+	 */
+	public WordPostings getPostings(String attributeName)
+	{
+		NetworkCounts counts = this.getAttributeCounts(attributeName);
+		return (counts == null) ? null : counts.getPostings()[0];
+	}
+	
+	/**
+	 * Returns the key under which the network counts for a set of attributes
+	 * are stored.  It includes the versions of the current filter and
+	 * delimiters, so counts made with older ones are never lent out.
+	 * @param List - names of the attributes counted.
+	 * @return String - key for the counts.
+	 */
+	public String getNetworkCountsKey(List<String> attributeNames)
+	{
+		List<String> sortedNames = new ArrayList<String>(attributeNames);
+		Collections.sort(sortedNames);
+		
+		StringBuffer key = new StringBuffer();
+		for (int i = 0; i < sortedNames.size(); i++)
+			key.append(sortedNames.get(i) + controlChar);
+		key.append(filter.getVersion() + "" + controlChar + delimiters.getVersion());
+		
+		return key.toString();
+	}
+	
+	/**
+	 * Lends out the network counts stored under a key.  Each cloud that
+	 * borrows counts must give them back with releaseNetworkCounts.
+	 * @param String - key made by getNetworkCountsKey.
+	 * @return NetworkCounts - the counts, or null if none are stored.
+	 */
+	public NetworkCounts borrowNetworkCounts(String key)
+	{
+		NetworkCounts counts = countStore.get(key);
+		if (counts != null)
+			counts.retain();
+		return counts;
+	}
+	
+	/**
+	 * Stores network counts made by a cloud so that other clouds can borrow
+	 * them.  The cloud that made them counts as their first borrower.
+	 * @param String - key made by getNetworkCountsKey.
+	 * @param NetworkCounts - the counts.
+	 */
+	public void addNetworkCounts(String key, NetworkCounts counts)
+	{
+		counts.retain();
+		countStore.put(key, counts);
+	}
+	
+	/**
+	 * Gives back borrowed network counts, dropping them once no cloud is
+	 * using them.
+	 * @param String - key the counts were borrowed under.
+	 * @param NetworkCounts - the counts.
+	 */
+	public void releaseNetworkCounts(String key, NetworkCounts counts)
+	{
+		if (counts.release() <= 0 && countStore.get(key) == counts)
+			countStore.remove(key);
+	}
+	
+	/**
+	 * Returns the network counts stored under a key without borrowing them.
+	 * @param String - key made by getNetworkCountsKey.
+	 * @return NetworkCounts - the counts, or null if none are stored.
+	 */
+	public NetworkCounts getNetworkCounts(String key)
+	{
+		return countStore.get(key);
+	}
+	
+	/**
+	 * Returns the positions of a node in the list of network nodes.
+	 * @param String - ID of the node.
+	 * @return int[] - positions in increasing order, or null if the node is
+	 * not in the network.
+	 */
+	public int[] getNodePositions(String nodeID)
+	{
+		if (nodePositions == null)
+		{
+			nodePositions = new HashMap<String, int[]>();
+			for (int i = 0; i < nodeList.size(); i++)
+			{
+				String curNodeID = nodeList.get(i);
+				int[] positions = nodePositions.get(curNodeID);
+				if (positions == null)
+					positions = new int[] {i};
+				else
+				{
+					int[] newPositions = new int[positions.length + 1];
+					System.arraycopy(positions, 0, newPositions, 0, positions.length);
+					newPositions[positions.length] = i;
+					positions = newPositions;
+				}
+				nodePositions.put(curNodeID, positions);
+			}
+		}
+		return nodePositions.get(nodeID);
+	}
+	
 	/**
 	 * Returns the name for the next cloud for this network.
 	 * @return String - name of the next cloud
@@ -343,6 +540,9 @@ public class SemanticSummaryParameters
 	public void setNetworkNodes(List<String> nodes)
 	{
 		nodeList = nodes;
+		nodePositions = null;
+		attributeCounts.clear();
+		countStore.clear();
 	}
 	
 	public Integer getMaxFont()
@@ -390,4 +590,9 @@ public class SemanticSummaryParameters
 		delimiters = aDelimiter;
 	}
 	
+	public NodeTokenCache getTokenCache()
+	{
+		return tokenCache;
+	}
+	
 }
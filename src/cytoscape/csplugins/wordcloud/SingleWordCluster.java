@@ -38,7 +38,7 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 {
 	
 	//VARIABLES
-	private ArrayList<String> wordList;
+	private ArrayList<Integer> wordIds; //WordDictionary IDs of the words in order
 	private Integer totalSum;
 	private Integer numItems;
 	private CloudParameters params;
@@ -51,7 +51,7 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	 */
 	public SingleWordCluster()
 	{
-		wordList = new ArrayList<String>();
+		wordIds = new ArrayList<Integer>();
 		totalSum = 0;
 		numItems = 0;
 		params = new CloudParameters();
@@ -76,15 +76,24 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	 * @param String - word to add to the SingleWordCluster
 	 */
 	public void add(String aWord)
+	{
+		this.add(WordDictionary.getInstance().getId(aWord));
+	}
+	
+	/**
+	 * Adds an element to the WordList and updates the totalSum.
+	 * @param int - WordDictionary ID of the word to add
+	 */
+	public void add(int wordId)
 	{
 		//Do nothing if not initialized
 		if(!initialized)
 			return;
 		
-		Integer fontSize = params.calculateFontSize(aWord);
+		Integer fontSize = params.calculateFontSize(wordId);
 		totalSum = totalSum + fontSize;
 		numItems = numItems + 1;
-		wordList.add(aWord);
+		wordIds.add(wordId);
 	}
 	
 	/**
@@ -94,13 +103,14 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	 */
 	public String remove(String aWord)
 	{
-		if (!wordList.contains(aWord))
+		Integer wordId = WordDictionary.getInstance().findId(aWord);
+		if (!wordIds.contains(wordId))
 			return null;
 		
-		Integer fontSize = params.calculateFontSize(aWord);
+		Integer fontSize = params.calculateFontSize(wordId);
 		totalSum = totalSum - fontSize;
 		numItems = numItems - 1;
-		wordList.remove(aWord);
+		wordIds.remove(wordId);
 		
 		return aWord;
 	}
@@ -129,9 +139,9 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	public Integer getLargestFont()
 	{
 		Integer largest = 0;
-		for (Iterator<String> iter = wordList.iterator(); iter.hasNext();)
+		for (Iterator<Integer> iter = wordIds.iterator(); iter.hasNext();)
 		{
-			String curWord = iter.next();
+			Integer curWord = iter.next();
 			Integer curSize = params.calculateFontSize(curWord);
 			if (largest < curSize)
 			{
@@ -150,9 +160,9 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	{
 		Double sum = 0.0;
 		Double k = 2.0;
-		for (Iterator<String> iter = wordList.iterator(); iter.hasNext();)
+		for (Iterator<Integer> iter = wordIds.iterator(); iter.hasNext();)
 		{
-			String curWord = iter.next();
+			Integer curWord = iter.next();
 			Integer curSize = params.calculateFontSize(curWord);
 			
 			sum = sum + Math.pow(curSize, k);
@@ -187,11 +197,25 @@ public class SingleWordCluster implements Comparable<SingleWordCluster>
 	
 	//Getters and Setters
 	
+	/**
+	 * Returns the words in this cluster, in order.
+	 * @return ArrayList - a new list of the words.
+	 */
 	public ArrayList<String> getWordList()
 	{
+		WordDictionary dictionary = WordDictionary.getInstance();
+		ArrayList<String> wordList = new ArrayList<String>(wordIds.size());
+		for (int i = 0; i < wordIds.size(); i++)
+			wordList.add(dictionary.getWord(wordIds.get(i)));
+		
 		return wordList;
 	}
 	
+	public ArrayList<Integer> getWordIds()
+	{
+		return wordIds;
+	}
+	
 	public Integer getTotalSum()
 	{
 		return totalSum;
@@ -0,0 +1,43 @@
+/*
+ File: TokenSink.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * A TokenSink receives the words found by a WordTokenizer.  Each word is
+ * passed as a span of the original value rather than as a new String, so
+ * the receiver decides whether a copy is ever needed.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public interface TokenSink
+{
+	/**
+	 * Called once for every word found, in the order the words appear.
+	 * The characters have not been converted to lower case.
+	 * @param CharSequence - the value being tokenized.
+	 * @param int - index of the first character of the word.
+	 * @param int - index after the last character of the word.
+	 */
+	public void addToken(CharSequence source, int start, int end);
+}
@@ -25,7 +25,6 @@ package cytoscape.csplugins.wordcloud;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.Set;
 
 /**
  * The WordClusters class contains information about the current clustering
@@ -70,14 +69,14 @@ public class WordClusters
 			params.updateSelectedCounts();
 		
 		//Get list of words
-		Set<String> words = params.getSelectedCounts().keySet();
+		int[] words = params.getSelectedWordIds();
 		
 		//Initialize as singletons
 		clusters = new ArrayList<SingleWordCluster>();
-		for (Iterator<String> iter = words.iterator(); iter.hasNext();)
+		for (int i = 0; i < words.length; i++)
 		{
 			//Create a list for each word and add to main list
-			String curWord = iter.next();
+			int curWord = words[i];
 			SingleWordCluster curList = new SingleWordCluster();
 			curList.initialize(cloudParams);
 			curList.add(curWord);
@@ -97,8 +96,8 @@ public class WordClusters
 		if (!this.isValidPair(aPair))
 			return;
 		
-		String firstWord = aPair.getFirstWord();
-		String secondWord = aPair.getSecondWord();
+		int firstWord = aPair.getFirstWordId();
+		int secondWord = aPair.getSecondWordId();
 		SingleWordCluster firstCluster = null;
 		SingleWordCluster secondCluster = null;
 		
@@ -110,33 +109,33 @@ public class WordClusters
 				//Find the Lists that have the first word at the end, and the second word at
 				//the beginning
 				
-				ArrayList<String> curList = curCluster.getWordList();
+				ArrayList<Integer> curList = curCluster.getWordIds();
 				int size = curList.size();
-				String firstItem = curList.get(0);
-				String lastItem = curList.get(size - 1);
+				int firstItem = curList.get(0);
+				int lastItem = curList.get(size - 1);
 				
-				if(firstItem.equals(secondWord))
+				if(firstItem == secondWord)
 					secondCluster = curCluster;
 				
-				if(lastItem.equals(firstWord))
+				if(lastItem == firstWord)
 					firstCluster = curCluster;
 			}//end non null
 		}//end iterator
 		
 		SingleWordCluster newCluster = new SingleWordCluster();
 		newCluster.initialize(params);
-		ArrayList<String> firstList = firstCluster.getWordList();
-		ArrayList<String> secondList = secondCluster.getWordList();
+		ArrayList<Integer> firstList = firstCluster.getWordIds();
+		ArrayList<Integer> secondList = secondCluster.getWordIds();
 		
 		for (int i = 0; i< firstList.size(); i++)
 		{
-			String curWord = firstList.get(i);
+			int curWord = firstList.get(i);
 			newCluster.add(curWord);
 		}
 		
 		for (int i = 0; i< secondList.size(); i++)
 		{
-			String curWord = secondList.get(i);
+			int curWord = secondList.get(i);
 			newCluster.add(curWord);
 		}
 		
@@ -155,8 +154,8 @@ public class WordClusters
 	private boolean isValidPair(WordPair aPair)
 	{
 		boolean isValid = false;
-		String firstWord = aPair.getFirstWord();
-		String secondWord = aPair.getSecondWord();
+		int firstWord = aPair.getFirstWordId();
+		int secondWord = aPair.getSecondWordId();
 		SingleWordCluster firstCluster = null;
 		SingleWordCluster secondCluster = null;
 		
@@ -168,15 +167,15 @@ public class WordClusters
 				//Find the Lists that have the first word at the end, and the second word at
 				//the beginning
 				
-				ArrayList<String> curList = curCluster.getWordList();
+				ArrayList<Integer> curList = curCluster.getWordIds();
 				int size = curList.size();
-				String firstItem = curList.get(0);
-				String lastItem = curList.get(size - 1);
+				int firstItem = curList.get(0);
+				int lastItem = curList.get(size - 1);
 				
-				if(firstItem.equals(secondWord))
+				if(firstItem == secondWord)
 					secondCluster = curCluster;
 				
-				if(lastItem.equals(firstWord))
+				if(lastItem == firstWord)
 					firstCluster = curCluster;
 			}//end non null
 		}//end iterator
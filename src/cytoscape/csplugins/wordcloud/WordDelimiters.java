@@ -49,6 +49,12 @@ public class WordDelimiters
 	private TreeSet<String> userDelims= new TreeSet<String>();
 	
 	private HashMap<String, String> regexTranslation = new HashMap<String, String>();
+	
+	//Compiled forms of the delimiters, rebuilt only when the set changes
+	private int version;
+	private String regex;
+	private WordTokenizer tokenizer;
+	private static int nextVersion = 0;
  	
 	//String Delimeters
 	private static final String DELIMITER = "SAVEDELIMITER";
@@ -62,6 +68,8 @@ public class WordDelimiters
 	 */
 	public WordDelimiters()
 	{
+		version = WordDelimiters.createVersion();
+		
 		delimsInUse.add("tab");
 		delimsInUse.add("space");
 		delimsInUse.add("newline");
@@ -208,6 +216,8 @@ public class WordDelimiters
 				userDelims.add(curDelim);
 			}
 		}
+		
+		this.delimitersChanged();
 	}
 	
 	
@@ -267,19 +277,66 @@ public class WordDelimiters
 	 */
 	public String getRegex()
 	{
-		String reg = "";
+		if (regex != null)
+			return regex;
+		
+		StringBuffer reg = new StringBuffer();
 		
 		for (Iterator<String> iter = delimsInUse.iterator(); iter.hasNext();)
 		{
 			String curDelim = iter.next();
 			String addDelim = this.translateToRegex(curDelim);
 			
-			reg = reg + addDelim;
+			reg.append(addDelim);
 		}//end for loop
 		
-		String regEx = "[" + reg + "]";
+		regex = "[" + reg.toString() + "]";
+		
+		return regex;
+	}
+	
+	/**
+	 * Returns the WordTokenizer for the delimiters currently in use.  The
+	 * tokenizer is immutable and is only rebuilt after the set of delimiters
+	 * has changed, so counting code should fetch it once per pass.
+	 * @return WordTokenizer for the current delimiters
+	 */
+	public WordTokenizer getTokenizer()
+	{
+		if (tokenizer == null || tokenizer.getVersion() != version)
+			tokenizer = new WordTokenizer(this);
 		
-		return regEx;
+		return tokenizer;
+	}
+	
+	/**
+	 * Returns the version stamp of the current set of delimiters.  The stamp
+	 * changes every time a delimiter is added or removed, and is never
+	 * shared by two different WordDelimiters objects.
+	 * @return int version of the delimiters
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * Marks the compiled forms of the delimiters out of date.
+	 */
+	private void delimitersChanged()
+	{
+		version = WordDelimiters.createVersion();
+		regex = null;
+		tokenizer = null;
+	}
+	
+	/**
+	 * Returns a new version stamp.
+	 */
+	private static synchronized int createVersion()
+	{
+		nextVersion++;
+		return nextVersion;
 	}
 	
 	/**
@@ -292,12 +349,16 @@ public class WordDelimiters
 		{
 			delimsToAdd.remove(delim);
 			delimsInUse.add(delim);
+			this.delimitersChanged();
 		}
 		//Add to user list
 		else
 		{
 			if (!userDelims.contains(delim))
+			{
 				userDelims.add(delim);
+				this.delimitersChanged();
+			}
 		}
 	}
 	
@@ -320,11 +381,13 @@ public class WordDelimiters
 			if (userDelims.contains(delim))
 			{
 				userDelims.remove(delim);
+				this.delimitersChanged();
 			}
 			else  if (delimsInUse.contains(delim))
 			{
 				delimsInUse.remove(delim);
 				delimsToAdd.add(delim);
+				this.delimitersChanged();
 			}
 		}
 	}
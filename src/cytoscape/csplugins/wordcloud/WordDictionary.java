@@ -0,0 +1,248 @@
+/*
+ File: WordDictionary.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * The WordDictionary class assigns an int ID to every distinct lower case
+ * word seen while counting.  Words are looked up directly from a span of
+ * the original value, and a new String is only created the first time a
+ * word is seen.  Every later occurrence maps to the same ID and String.
+ * <p>
+ * One dictionary is shared by every network and cloud, so the vocabulary is
+ * only stored once and word IDs can be used as keys anywhere.  Words are
+ * never removed, so the dictionary grows with every word ever tokenized,
+ * filtered or not, and should not be used to size per-cloud tables.
+ * Adding and finding words is synchronized, while getWord is a plain
+ * array read.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class WordDictionary
+{
+	//VARIABLES
+	private volatile String[] words; //word for each ID
+	private int[] hashes; //hash code of the word for each ID
+	private int[] table; //open addressed hash table of ID + 1, 0 when empty
+	private int size;
+
+	private static final int INITIALSIZE = 1024;
+
+	private static WordDictionary instance = new WordDictionary();
+
+	//CONSTRUCTORS
+
+	/**
+	 * Creates an empty WordDictionary.
+	 */
+	public WordDictionary()
+	{
+		words = new String[INITIALSIZE];
+		hashes = new int[INITIALSIZE];
+		table = new int[INITIALSIZE * 2];
+		size = 0;
+	}
+
+	//METHODS
+
+	/**
+	 * Returns the dictionary shared by all networks and clouds.
+	 * @return WordDictionary - the shared dictionary.
+	 */
+	public static WordDictionary getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Returns the ID of the lower case form of part of a value, adding the
+	 * word to the dictionary if it has not been seen before.
+	 * @param CharSequence - the value containing the word.
+	 * @param int - index of the first character of the word.
+	 * @param int - index after the last character of the word.
+	 * @return int - the ID of the word.
+	 */
+	public synchronized int getId(CharSequence source, int start, int end)
+	{
+		int hash = 0;
+		for (int i = start; i < end; i++)
+		{
+			char curChar = source.charAt(i);
+
+			//Rare characters that need the whole word to convert
+			if (WordTokenizer.needsWordFold(curChar))
+				return this.getId(WordTokenizer.foldWord(source, start, end));
+
+			hash = 31 * hash + WordTokenizer.foldCase(curChar);
+		}
+
+		int mask = table.length - 1;
+		int slot = WordDictionary.mix(hash) & mask;
+		while (table[slot] != 0)
+		{
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && this.matches(words[id], source, start, end))
+				return id;
+			slot = (slot + 1) & mask;
+		}
+
+		//Never seen, only now build the String
+		return this.insert(WordTokenizer.foldWord(source, start, end), hash, slot);
+	}
+
+	/**
+	 * Returns the ID of a word that is already lower case, adding it to the
+	 * dictionary if it has not been seen before.
+	 * @param String - the word.
+	 * @return int - the ID of the word.
+	 */
+	public synchronized int getId(String word)
+	{
+		int slot = this.findSlot(word);
+		if (table[slot] != 0)
+			return table[slot] - 1;
+
+		return this.insert(word, word.hashCode(), slot);
+	}
+
+	/**
+	 * Returns the ID of a word that is already lower case, or -1 if the word
+	 * is not in the dictionary.
+	 * @param String - the word.
+	 * @return int - the ID of the word, or -1.
+	 */
+	public synchronized int findId(String word)
+	{
+		int slot = this.findSlot(word);
+		return table[slot] - 1;
+	}
+
+	/**
+	 * Returns the word for an ID.
+	 * @param int - the ID of the word.
+	 * @return String - the word.
+	 */
+	public String getWord(int id)
+	{
+		return words[id];
+	}
+
+	/**
+	 * Returns the number of words in the dictionary.  IDs run from 0 to
+	 * size - 1.
+	 * @return int - the number of words.
+	 */
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the table slot holding a word, or the empty slot where it
+	 * would be inserted.
+	 */
+	private int findSlot(String word)
+	{
+		int hash = word.hashCode();
+		int mask = table.length - 1;
+		int slot = WordDictionary.mix(hash) & mask;
+		while (table[slot] != 0)
+		{
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && words[id].equals(word))
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Adds a new word at the given empty slot and returns its ID.
+	 */
+	private int insert(String word, int hash, int slot)
+	{
+		int id = size;
+		if (id == words.length)
+		{
+			String[] newWords = new String[id * 2];
+			System.arraycopy(words, 0, newWords, 0, id);
+			words = newWords;
+
+			int[] newHashes = new int[id * 2];
+			System.arraycopy(hashes, 0, newHashes, 0, id);
+			hashes = newHashes;
+		}
+		words[id] = word;
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		size++;
+
+		//Keep the table at most half full
+		if (size * 2 > table.length)
+			this.rehash();
+
+		return id;
+	}
+
+	/**
+	 * Doubles the hash table and reinserts every ID.
+	 */
+	private void rehash()
+	{
+		int[] newTable = new int[table.length * 2];
+		int mask = newTable.length - 1;
+		for (int id = 0; id < size; id++)
+		{
+			int slot = WordDictionary.mix(hashes[id]) & mask;
+			while (newTable[slot] != 0)
+				slot = (slot + 1) & mask;
+			newTable[slot] = id + 1;
+		}
+		table = newTable;
+	}
+
+	/**
+	 * Returns true if the word equals the lower case form of the span.
+	 */
+	private boolean matches(String word, CharSequence source, int start, int end)
+	{
+		if (word.length() != end - start)
+			return false;
+
+		for (int i = start; i < end; i++)
+		{
+			if (word.charAt(i - start) != WordTokenizer.foldCase(source.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Spreads the bits of a String hash code over the table.
+	 */
+	private static int mix(int hash)
+	{
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		return hash ^ (hash >>> 7) ^ (hash >>> 4);
+	}
+}
@@ -57,6 +57,8 @@ public class WordFilter
 	private HashSet<String> addedWords = new HashSet<String>(); //User added words
 	private HashSet<String> numberWords = new HashSet<String>();
 	private Boolean filterNums = false;
+	private int version = WordFilter.createVersion(); //changes whenever the filtered words change
+	private static int nextVersion = 0;
 	final static public String stopWordFile = "StopWords.txt";
 	final static public String flaggedWordFile = "FlaggedWords.txt";
 	final static public String separator = "/";
@@ -187,6 +189,7 @@ public class WordFilter
 	public void add(String aWord)
 	{
 		addedWords.add(aWord);
+		version = WordFilter.createVersion();
 	}
 	
 	/**
@@ -201,7 +204,29 @@ public class WordFilter
 		else if (flaggedWords.contains(aWord))
 			flaggedWords.remove(aWord);
 		else if (addedWords.contains(aWord))
-			addedWords.remove(aWord);	
+			addedWords.remove(aWord);
+		
+		version = WordFilter.createVersion();
+	}
+	
+	/**
+	 * Returns the version stamp of the current set of filtered words.  The
+	 * stamp changes every time a word is added or removed or numbers are
+	 * turned on or off, and is never shared by two WordFilter objects.
+	 * @return int version of the filter
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * Returns a new version stamp.
+	 */
+	private static synchronized int createVersion()
+	{
+		nextVersion++;
+		return nextVersion;
 	}
 	
 	/**
@@ -360,5 +385,6 @@ public class WordFilter
 	public void setFilterNums(Boolean val)
 	{
 		filterNums = val;
+		version = WordFilter.createVersion();
 	}
 }
@@ -0,0 +1,140 @@
+/*
+ File: WordIdCollector.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.Arrays;
+
+/**
+ * The WordIdCollector class is a TokenSink that looks every word up in a
+ * WordDictionary and keeps the distinct IDs in the order they first
+ * appear.  One collector is reused for every value in a counting pass.
+ * Repeated words are found with a stamp per word ID rather than a search,
+ * and clearing the collector just starts a new generation of stamps.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class WordIdCollector implements TokenSink
+{
+	//VARIABLES
+	private WordDictionary dictionary;
+	private int[] ids;
+	private int size;
+	private int[] seen; //generation in which each word ID was last collected
+	private int generation;
+
+	//CONSTRUCTORS
+
+	/**
+	 * Creates an empty collector for the given dictionary.
+	 * @param WordDictionary - dictionary to look words up in.
+	 */
+	public WordIdCollector(WordDictionary aDictionary)
+	{
+		dictionary = aDictionary;
+		ids = new int[16];
+		size = 0;
+		seen = new int[dictionary.size() + 16];
+		generation = 1;
+	}
+
+	//METHODS
+
+	/**
+	 * Adds the ID of a word if it has not already been collected.
+	 */
+	public void addToken(CharSequence source, int start, int end)
+	{
+		int id = dictionary.getId(source, start, end);
+
+		if (id >= seen.length)
+		{
+			int[] newSeen = new int[Math.max(id + 1, seen.length * 2)];
+			System.arraycopy(seen, 0, newSeen, 0, seen.length);
+			seen = newSeen;
+		}
+		if (seen[id] == generation)
+			return;
+		seen[id] = generation;
+
+		if (size == ids.length)
+		{
+			int[] newIds = new int[size * 2];
+			System.arraycopy(ids, 0, newIds, 0, size);
+			ids = newIds;
+		}
+		ids[size] = id;
+		size++;
+	}
+
+	/**
+	 * Empties the collector so it can be used for the next value.
+	 */
+	public void clear()
+	{
+		size = 0;
+		generation++;
+
+		//Start the stamps again rather than let them wrap around
+		if (generation == Integer.MAX_VALUE)
+		{
+			Arrays.fill(seen, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Returns the number of distinct words collected.
+	 * @return int - number of words.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the ID of the word collected at the given position.
+	 * @param int - position, in order of first appearance.
+	 * @return int - word ID.
+	 */
+	public int get(int index)
+	{
+		return ids[index];
+	}
+
+	/**
+	 * Returns a copy of the collected IDs.
+	 * @return int[] - word IDs in order of first appearance.
+	 */
+	public int[] toArray()
+	{
+		int[] result = new int[size];
+		System.arraycopy(ids, 0, result, 0, size);
+		return result;
+	}
+
+	public WordDictionary getDictionary()
+	{
+		return dictionary;
+	}
+}
@@ -32,8 +32,8 @@ package cytoscape.csplugins.wordcloud;
 public class WordPair implements Comparable<WordPair>
 {
 	//VARIABLES
-	private String firstWord;
-	private String secondWord;
+	private int firstWordId; //WordDictionary IDs of the words
+	private int secondWordId;
 	private Double probability;
 	private CloudParameters params;
 	private static final char controlChar = '\u001F';
@@ -45,8 +45,18 @@ public class WordPair implements Comparable<WordPair>
 	 */
 	public WordPair(String aWord, String nextWord, CloudParameters cloudParams)
 	{
-		firstWord = aWord;
-		secondWord = nextWord;
+		this(WordDictionary.getInstance().getId(aWord), 
+				WordDictionary.getInstance().getId(nextWord), cloudParams);
+	}
+	
+	/**
+	 * Creates a fresh instance of a WordPair object for the words with the
+	 * specified WordDictionary IDs and CloudParameters.
+	 */
+	public WordPair(int aWordId, int nextWordId, CloudParameters cloudParams)
+	{
+		firstWordId = aWordId;
+		secondWordId = nextWordId;
 		params = cloudParams;
 		probability = 0.0;
 	}
@@ -67,10 +77,9 @@ public class WordPair implements Comparable<WordPair>
 		 * (#(A,B)* #Total)/ (#A * #B)
 		 */
 		Integer total = params.getSelectedNumNodes();
-		Integer firstCount = params.getSelectedCounts().get(firstWord);
-		Integer secondCount = params.getSelectedCounts().get(secondWord);
-		String pairName = firstWord + controlChar + secondWord;
-		Integer pairCount = params.getSelectedPairCounts().get(pairName);
+		Integer firstCount = params.getSelectedCount(firstWordId);
+		Integer secondCount = params.getSelectedCount(secondWordId);
+		Integer pairCount = params.getSelectedPairCount(firstWordId, secondWordId);
 		
 		Integer numerator = pairCount * total;
 		Double doubleNumerator = numerator.doubleValue();
@@ -92,11 +101,9 @@ public class WordPair implements Comparable<WordPair>
 		else //They are the same - so now compare with ratios
 		{
 			//Assumes that Ratios have been calculated
-			String firstWordPair = this.getWordPairing();
-			String secondWordPair = second.getWordPairing();
-			
-			Double firstRatio = this.getCloudParameters().getPairRatios().get(firstWordPair);
-			Double secondRatio = second.getCloudParameters().getPairRatios().get(secondWordPair);
+			double firstRatio = this.getCloudParameters().getPairRatio(firstWordId, secondWordId);
+			double secondRatio = second.getCloudParameters().getPairRatio(second.firstWordId, 
+					second.secondWordId);
 			
 			if (firstRatio < secondRatio)
 				return -1;
@@ -105,7 +112,7 @@ public class WordPair implements Comparable<WordPair>
 			else
 				//Third level of tie break - alphabetical of words
 			{
-				return firstWordPair.compareTo(secondWordPair);
+				return this.getWordPairing().compareTo(second.getWordPairing());
 			}
 		}//end probability else
 	}//end compareTo
@@ -113,22 +120,32 @@ public class WordPair implements Comparable<WordPair>
 	//Getters and Setters
 	public void setFirstWord(String aWord)
 	{
-		firstWord = aWord;
+		firstWordId = WordDictionary.getInstance().getId(aWord);
 	}
 	
 	public String getFirstWord()
 	{
-		return firstWord;
+		return WordDictionary.getInstance().getWord(firstWordId);
+	}
+	
+	public int getFirstWordId()
+	{
+		return firstWordId;
 	}
 	
 	public void setSecondWord(String aWord)
 	{
-		secondWord = aWord;
+		secondWordId = WordDictionary.getInstance().getId(aWord);
 	}
 	
 	public String getSecondWord()
 	{
-		return secondWord;
+		return WordDictionary.getInstance().getWord(secondWordId);
+	}
+	
+	public int getSecondWordId()
+	{
+		return secondWordId;
 	}
 	
 	public void setCloudParameters(CloudParameters aParam)
@@ -148,7 +165,7 @@ public class WordPair implements Comparable<WordPair>
 	
 	public String getWordPairing()
 	{
-		return firstWord + controlChar + secondWord;
+		return this.getFirstWord() + controlChar + this.getSecondWord();
 	}
 
 }
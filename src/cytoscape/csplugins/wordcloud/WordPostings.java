@@ -0,0 +1,133 @@
+/*
+ File: WordPostings.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+/**
+ * The WordPostings class records which nodes of a network contain each word
+ * of one attribute.  Nodes are identified by their position in the network's
+ * node list, and the positions for each word are held in a NodeBitmap
+ * indexed by WordDictionary ID.  Postings are built once per attribute and
+ * shared by every cloud on the network through SemanticSummaryParameters.
+ * <p>
+ * Postings only hold the words that pass the filter.  Word pairs depend on the
+ * order of the words in each node, so they are counted from the rows of a
+ * NodeWordMatrix instead.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class WordPostings
+{
+	//VARIABLES
+	private NodeBitmap[] postings; //nodes for each word ID, or null
+	
+	//CONSTRUCTORS
+	
+	/**
+	 * Creates empty postings.
+	 */
+	public WordPostings()
+	{
+		postings = new NodeBitmap[64];
+	}
+	
+	//METHODS
+	
+	/**
+	 * Records that the node at a position contains a word.
+	 * @param int - ID of the word.
+	 * @param int - position of the node in the network's node list.
+	 */
+	public void add(int wordId, int position)
+	{
+		this.ensureCapacity(wordId);
+		if (postings[wordId] == null)
+			postings[wordId] = new NodeBitmap();
+		postings[wordId].add(position);
+	}
+	
+	/**
+	 * Returns the positions of the nodes containing a word.
+	 * @param int - ID of the word.
+	 * @return NodeBitmap - the positions, or null if no node contains it.
+	 */
+	public NodeBitmap get(int wordId)
+	{
+		if (wordId < 0 || wordId >= postings.length)
+			return null;
+		return postings[wordId];
+	}
+	
+	/**
+	 * Adds every node in other postings to these.  When all positions in the
+	 * other postings come after the ones here, as when merging the postings
+	 * of consecutive ranges of nodes, the positions are simply appended.
+	 * The other postings must not be used afterwards, since their lists may
+	 * be taken over rather than copied.
+	 * @param WordPostings - postings to add.
+	 */
+	public void addAll(WordPostings other)
+	{
+		for (int wordId = 0; wordId < other.postings.length; wordId++)
+		{
+			NodeBitmap otherNodes = other.postings[wordId];
+			if (otherNodes == null)
+				continue;
+			
+			this.ensureCapacity(wordId);
+			if (postings[wordId] == null)
+				postings[wordId] = otherNodes;
+			else
+				postings[wordId].or(otherNodes);
+		}
+	}
+	
+	/**
+	 * Compresses every posting list once all nodes have been added.
+	 */
+	public void optimize()
+	{
+		for (int i = 0; i < postings.length; i++)
+		{
+			if (postings[i] != null)
+				postings[i].runOptimize();
+		}
+	}
+	
+	/**
+	 * Grows the word postings so they have room for a word ID.
+	 */
+	private void ensureCapacity(int wordId)
+	{
+		if (wordId < postings.length)
+			return;
+		
+		int newLength = postings.length * 2;
+		while (newLength <= wordId)
+			newLength = newLength * 2;
+		
+		NodeBitmap[] newPostings = new NodeBitmap[newLength];
+		System.arraycopy(postings, 0, newPostings, 0, postings.length);
+		postings = newPostings;
+	}
+}
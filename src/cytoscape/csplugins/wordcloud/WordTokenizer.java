@@ -0,0 +1,366 @@
+/*
+ File: WordTokenizer.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The WordTokenizer class splits the value of a node attribute into the
+ * distinct lower case words that are counted in a cloud.  Each value is
+ * scanned once: delimiter characters are looked up in a table built from a
+ * WordDelimiters object and case is folded as each character is read.
+ * @author Layla Oesper
+ * @version 1.0
+ */
+
+public class WordTokenizer
+{
+	//VARIABLES
+	private boolean[] delimTable; //true for every delimiting character
+	private DelimiterAutomaton userDelims; //multi-character user delimiters, or null
+	private int version; //version of the WordDelimiters this was built from
+
+	private static final char controlChar = '\u001F';
+
+	//CONSTRUCTORS
+
+	/**
+	 * Creates a WordTokenizer for the delimiters currently in use in the
+	 * supplied WordDelimiters.  Most callers should use
+	 * WordDelimiters.getTokenizer() so the tokenizer is shared.
+	 * @param WordDelimiters - delimiters to split values on.
+	 */
+	public WordTokenizer(WordDelimiters delims)
+	{
+		version = delims.getVersion();
+		
+		delimTable = new boolean[Character.MAX_VALUE + 1];
+
+		//The control character has always been a separator
+		delimTable[controlChar] = true;
+
+		//Standard delimiters
+		for (Iterator<String> iter = delims.getDelimsInUse().iterator(); iter.hasNext();)
+		{
+			String curDelim = iter.next();
+			String regex = delims.translateToRegex(curDelim);
+
+			if (regex == null)
+				continue;
+
+			delimTable[this.translateFromRegex(regex)] = true;
+		}
+
+		//User delimiters, single characters go straight in the table and
+		//the rest are compiled into one automaton.  They are folded the same
+		//way as the values so they match whatever the default locale is.
+		List<String> multiDelims = new ArrayList<String>();
+		for (Iterator<String> iter = delims.getUserDelims().iterator(); iter.hasNext();)
+		{
+			String curDelim = iter.next();
+			curDelim = WordTokenizer.foldWord(curDelim, 0, curDelim.length());
+
+			if (curDelim.length() == 1)
+				delimTable[curDelim.charAt(0)] = true;
+			else if (curDelim.length() > 1)
+				multiDelims.add(curDelim);
+		}
+		if (!multiDelims.isEmpty())
+			userDelims = new DelimiterAutomaton(multiDelims);
+	}
+
+	//METHODS
+
+	/**
+	 * Separates a node value into a non repeated list of lower case words,
+	 * in the order they first appear.
+	 * @param String - value from a node that we are processing.
+	 * @return List of distinct words.
+	 */
+	public List<String> tokenize(String nodeValue)
+	{
+		final List<String> wordSet = new ArrayList<String>();
+		final HashSet<String> seen = new HashSet<String>();
+
+		this.tokenize(nodeValue, new TokenSink()
+		{
+			public void addToken(CharSequence source, int start, int end)
+			{
+				String word = WordTokenizer.foldWord(source, start, end);
+				if (seen.add(word))
+					wordSet.add(word);
+			}
+		});
+
+		return wordSet;
+	}
+
+	/**
+	 * Passes every word in a node value to the sink as a span of the
+	 * original value, in the order the words appear.  No Strings are
+	 * created and repeated words are passed each time they occur.
+	 * @param String - value from a node that we are processing.
+	 * @param TokenSink - receiver of the words.
+	 */
+	public void tokenize(String nodeValue, TokenSink sink)
+	{
+		if (userDelims == null)
+			this.tokenizeStandard(nodeValue, sink);
+		else
+			this.tokenizeWithUserDelims(nodeValue, sink);
+	}
+
+	/**
+	 * Passes every word in a list of values to the sink, as for a single
+	 * value.  Each value is tokenized on its own, so a word never runs from
+	 * one value into the next.
+	 * @param List - strings from a node that we are processing.
+	 * @param TokenSink - receiver of the words.
+	 */
+	public void tokenize(List<String> nodeValues, TokenSink sink)
+	{
+		for (int i = 0; i < nodeValues.size(); i++)
+			this.tokenize(nodeValues.get(i), sink);
+	}
+
+	/**
+	 * Splits a value when there are only single character delimiters.
+	 */
+	private void tokenizeStandard(String nodeValue, TokenSink sink)
+	{
+		int length = nodeValue.length();
+		int wordStart = -1;
+		for (int i = 0; i < length; i++)
+		{
+			char curChar = WordTokenizer.foldCase(nodeValue.charAt(i));
+			if (delimTable[curChar])
+			{
+				if (wordStart >= 0)
+					sink.addToken(nodeValue, wordStart, i);
+				wordStart = -1;
+			}
+			else if (wordStart < 0)
+				wordStart = i;
+		}
+
+		if (wordStart >= 0)
+			sink.addToken(nodeValue, wordStart, length);
+	}
+
+	/**
+	 * Splits a value on single character delimiters and, in the same pass,
+	 * on every occurrence of a multi-character user delimiter.  Because a
+	 * user delimiter is only recognized at its last character, finished
+	 * words are held back until the automaton shows that no delimiter
+	 * still being read can reach back into them.
+	 */
+	private void tokenizeWithUserDelims(String nodeValue, TokenSink sink)
+	{
+		int length = nodeValue.length();
+		int[] pendingStart = new int[8];
+		int[] pendingEnd = new int[8];
+		int firstPending = 0;
+		int numPending = 0;
+
+		int state = 0;
+		int wordStart = -1;
+		for (int i = 0; i < length; i++)
+		{
+			char curChar = WordTokenizer.foldCase(nodeValue.charAt(i));
+			state = userDelims.step(state, curChar);
+			int matchLength = userDelims.getMatchLength(state);
+
+			int wordEnd = -1;
+			if (matchLength > 0)
+			{
+				//Everything from the start of the delimiter on is removed
+				int delimStart = i - matchLength + 1;
+				if (wordStart >= 0 && wordStart < delimStart)
+					wordEnd = delimStart;
+				else
+					wordStart = -1;
+
+				while (numPending > firstPending && pendingEnd[numPending - 1] > delimStart)
+				{
+					if (pendingStart[numPending - 1] < delimStart)
+					{
+						pendingEnd[numPending - 1] = delimStart;
+						break;
+					}
+					numPending--;
+				}
+			}
+			else if (delimTable[curChar])
+			{
+				if (wordStart >= 0)
+					wordEnd = i;
+			}
+			else if (wordStart < 0)
+			{
+				wordStart = i;
+			}
+
+			//Hold the finished word back
+			if (wordEnd >= 0)
+			{
+				if (numPending == pendingStart.length)
+				{
+					pendingStart = this.grow(pendingStart);
+					pendingEnd = this.grow(pendingEnd);
+				}
+				pendingStart[numPending] = wordStart;
+				pendingEnd[numPending] = wordEnd;
+				numPending++;
+				wordStart = -1;
+			}
+
+			//Release the words no later delimiter can reach
+			int safe = i + 1 - userDelims.getDepth(state);
+			while (firstPending < numPending && pendingEnd[firstPending] <= safe)
+			{
+				sink.addToken(nodeValue, pendingStart[firstPending], pendingEnd[firstPending]);
+				firstPending++;
+			}
+			if (firstPending == numPending)
+			{
+				firstPending = 0;
+				numPending = 0;
+			}
+		}
+
+		for (int i = firstPending; i < numPending; i++)
+			sink.addToken(nodeValue, pendingStart[i], pendingEnd[i]);
+
+		if (wordStart >= 0)
+			sink.addToken(nodeValue, wordStart, length);
+	}
+
+	/**
+	 * Returns true if the given character separates words.
+	 * @param char - character to check.
+	 * @return true if the character is a delimiter.
+	 */
+	public boolean isDelimiter(char aChar)
+	{
+		return delimTable[WordTokenizer.foldCase(aChar)];
+	}
+
+	/**
+	 * Returns the version of the WordDelimiters this tokenizer was built from.
+	 * @return int version stamp
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Returns the lower case form of a character as used for every word
+	 * and delimiter comparison.  ASCII characters, which make up nearly all
+	 * annotation text, are converted directly.
+	 * @param char - character to convert.
+	 * @return char - lower case character.
+	 */
+	public static char foldCase(char aChar)
+	{
+		if (aChar < 128)
+		{
+			if (aChar >= 'A' && aChar <= 'Z')
+				return (char)(aChar + ('a' - 'A'));
+			return aChar;
+		}
+		return Character.toLowerCase(aChar);
+	}
+
+	/**
+	 * Returns true if a character can not be converted to lower case on its
+	 * own: a capital sigma, whose lower case form depends on whether it ends
+	 * a word, a dotted capital I, which becomes two characters, and half of
+	 * a surrogate pair.  Words containing one are converted as a whole.
+	 * @param char - character to check.
+	 * @return true if foldCase is not enough for this character.
+	 */
+	public static boolean needsWordFold(char aChar)
+	{
+		if (aChar < 128)
+			return false;
+
+		return aChar == '\u03A3' || aChar == '\u0130' 
+			|| Character.isHighSurrogate(aChar) || Character.isLowSurrogate(aChar);
+	}
+
+	/**
+	 * Returns the lower case form of part of a value as a new String.
+	 * @param CharSequence - the value containing the word.
+	 * @param int - index of the first character of the word.
+	 * @param int - index after the last character of the word.
+	 * @return String - the lower case word.
+	 */
+	public static String foldWord(CharSequence source, int start, int end)
+	{
+		char[] chars = new char[end - start];
+		for (int i = start; i < end; i++)
+		{
+			char curChar = source.charAt(i);
+			if (WordTokenizer.needsWordFold(curChar))
+				return source.subSequence(start, end).toString().toLowerCase(Locale.ENGLISH);
+
+			chars[i - start] = WordTokenizer.foldCase(curChar);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Doubles the size of an array, keeping its contents.
+	 */
+	private int[] grow(int[] array)
+	{
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	/**
+	 * Turns the regex translation of a standard delimiter back into the
+	 * single character it stands for.
+	 */
+	private char translateFromRegex(String regex)
+	{
+		if (regex.equals("\\t"))
+			return '\t';
+		else if (regex.equals("\\n"))
+			return '\n';
+		else if (regex.equals("\\r"))
+			return '\r';
+		else if (regex.equals("\\f"))
+			return '\f';
+		else if (regex.startsWith("\\"))
+			return regex.charAt(1);
+		else
+			return regex.charAt(0);
+	}
+}
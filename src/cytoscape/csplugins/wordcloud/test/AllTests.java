@@ -38,7 +38,9 @@ public class AllTests {
 				SemanticSummaryParametersUnitTest.class,
 				WordFilterUnitTest.class,
 				CloudParametersUnitTest.class,
-				SemanticSummaryClusterBuilderUnitTest.class};
+				SemanticSummaryClusterBuilderUnitTest.class,
+				WordTokenizerUnitTest.class,
+				PrimitiveMapUnitTest.class};
 		
 		TestSuite suite = new TestSuite(testClasses);
 		suite.setName("SemanticSummaryPlugin Test");
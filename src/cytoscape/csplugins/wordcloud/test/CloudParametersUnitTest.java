@@ -28,7 +28,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.TestCase;
@@ -40,7 +43,16 @@ import cytoscape.CyNode;
 import cytoscape.Cytoscape;
 import cytoscape.csplugins.wordcloud.CloudParameters;
 import cytoscape.csplugins.wordcloud.CloudWordInfo;
+import cytoscape.csplugins.wordcloud.CountSummary;
+import cytoscape.csplugins.wordcloud.IntIntHashMap;
+import cytoscape.csplugins.wordcloud.LongIntHashMap;
+import cytoscape.csplugins.wordcloud.NetworkCounter;
+import cytoscape.csplugins.wordcloud.NetworkCounts;
+import cytoscape.csplugins.wordcloud.NodeTokenCache;
+import cytoscape.csplugins.wordcloud.SelectionCounter;
 import cytoscape.csplugins.wordcloud.SemanticSummaryParameters;
+import cytoscape.csplugins.wordcloud.WordDictionary;
+import cytoscape.csplugins.wordcloud.WordPostings;
 
 public class CloudParametersUnitTest extends TestCase {
 	
@@ -297,5 +309,616 @@ public class CloudParametersUnitTest extends TestCase {
 				new Integer(parentParams.getMinFont()));
 		
 	}
-
+	
+	@Test
+	public void testTokenCache() {
+		
+		cloudParams.updateSelectedCounts();
+		
+		//Both passes fill the shared cache
+		NodeTokenCache cache = parentParams.getTokenCache();
+		String attName = cloudParams.getAttributeNames().get(0);
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int[] wordIds = cache.get("Node onenode", attName);
+		assertEquals(wordIds.length, 2);
+		assertEquals(dictionary.getWord(wordIds[0]), "node");
+		assertEquals(dictionary.getWord(wordIds[1]), "onenode");
+		
+		//Only the changed entry is removed
+		cache.invalidate("Node onenode", attName);
+		assertNull(cache.get("Node onenode", attName));
+		assertNotNull(cache.get("Node twonode", attName));
+		
+		//Recounting puts it back with the same counts
+		parentParams.networkChanged();
+		cloudParams.updateSelectedCounts();
+		assertNotNull(cache.get("Node onenode", attName));
+		assertEquals((Integer)cloudParams.getSelectedCounts().get("onenode"), new Integer(2));
+		
+		//New delimiters empty the cache on the next pass
+		parentParams.getDelimiter().addDelimToUse("-");
+		parentParams.networkChanged();
+		cloudParams.initializeNetworkCounts();
+		wordIds = cache.get("Node with non-stripped punctuation", attName);
+		assertEquals(wordIds.length, 5);
+	}
+	
+	@Test
+	public void testSharedValues() {
+		
+		//Two nodes with the same description
+		Cytoscape.getNodeAttributes().setAttribute("Node onenode", "description", "Cell death");
+		Cytoscape.getNodeAttributes().setAttribute("Node twonode", "description", "Cell death");
+		Cytoscape.getNodeAttributes().setAttribute("ONENODE", "description", "Cell cycle");
+		
+		ArrayList<String> attributes = new ArrayList<String>();
+		attributes.add("description");
+		cloudParams.setAttributeNames(attributes);
+		cloudParams.updateSelectedCounts();
+		
+		//The value is only tokenized once
+		NodeTokenCache cache = parentParams.getTokenCache();
+		int[] wordIds = cache.get("Node onenode", "description");
+		assertTrue(wordIds == cache.get("Node twonode", "description"));
+		assertFalse(wordIds == cache.get("ONENODE", "description"));
+		
+		HashMap<String,Integer> counts = cloudParams.getSelectedCounts();
+		assertEquals((Integer)counts.get("cell"), new Integer(3));
+		assertEquals((Integer)counts.get("death"), new Integer(2));
+	}
+	
+	@Test
+	public void testListAttribute() {
+		
+		//Each element is tokenized on its own
+		List<String> terms = new ArrayList<String>();
+		terms.add("Cell death");
+		terms.add("cell cycle");
+		terms.add("Apoptosis");
+		Cytoscape.getNodeAttributes().setListAttribute("Node onenode", "terms", terms);
+		
+		ArrayList<String> attributes = new ArrayList<String>();
+		attributes.add("terms");
+		cloudParams.setAttributeNames(attributes);
+		cloudParams.updateSelectedCounts();
+		
+		HashMap<String,Integer> counts = cloudParams.getSelectedCounts();
+		assertEquals((Integer)counts.get("cell"), new Integer(1));
+		assertEquals((Integer)counts.get("death"), new Integer(1));
+		assertEquals((Integer)counts.get("cycle"), new Integer(1));
+		assertEquals((Integer)counts.get("apoptosis"), new Integer(1));
+		
+		//Words in neighbouring elements still form pairs
+		HashMap<String, Integer> pairCounts = cloudParams.getSelectedPairCounts();
+		assertEquals((Integer)pairCounts.get("death" + charString + "cycle"), new Integer(1));
+		assertEquals((Integer)pairCounts.get("cycle" + charString + "apoptosis"), new Integer(1));
+	}
+	
+	@Test
+	public void testWordKeyedCopies() {
+		
+		cloudParams.updateRatios();
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int nodeId = dictionary.findId("node");
+		assertEquals(cloudParams.getSelectedCount(nodeId), 5);
+		assertEquals(cloudParams.getNetworkCount(nodeId), 9);
+		assertEquals(cloudParams.getSelectedCount(dictionary.getId("notaword")), 0);
+		
+		//Restoring a session goes through the word keyed maps
+		CloudParameters restored = new CloudParameters();
+		restored.setNetworkParams(parentParams);
+		restored.setNetworkCounts(cloudParams.getNetworkCounts());
+		restored.setSelectedCounts(cloudParams.getSelectedCounts());
+		restored.setRatios(cloudParams.getRatios());
+		restored.setPairRatios(cloudParams.getPairRatios());
+		restored.setStringNodeMapping(cloudParams.getStringNodeMapping());
+		
+		assertEquals(restored.getSelectedCounts(), cloudParams.getSelectedCounts());
+		assertEquals(restored.getNetworkCount(nodeId), 9);
+		assertEquals(restored.getRatio(nodeId), cloudParams.getRatio(nodeId));
+		assertEquals(restored.getRatios(), cloudParams.getRatios());
+		assertEquals(restored.getPairRatios(), cloudParams.getPairRatios());
+		assertTrue(Double.isNaN(restored.getRatio(WordDictionary.getInstance().getId("zzznotselected"))));
+		assertEquals(restored.getWordNodes("twonode").size(), 2);
+	}
+	
+	@Test
+	public void testSharedPostings() {
+		
+		cloudParams.initializeNetworkCounts();
+		String attName = cloudParams.getAttributeNames().get(0);
+		WordPostings postings = parentParams.getPostings(attName);
+		assertNotNull(postings);
+		
+		//A second cloud on the same attribute uses the same postings
+		CloudParameters secondCloud = new CloudParameters();
+		secondCloud.setNetworkParams(parentParams);
+		secondCloud.initializeNetworkCounts();
+		assertTrue(postings == parentParams.getPostings(attName));
+		
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int stripId = dictionary.findId("strip");
+		assertTrue(cloudParams.getWordPostings(stripId) == secondCloud.getWordPostings(stripId));
+		assertEquals(secondCloud.getWordNodes("strip").get(0), "Reactome_node to strip lots from.");
+		
+		//Filtered words are not in the postings and have no nodes
+		assertNull(postings.get(dictionary.findId("with")));
+		assertNull(secondCloud.getWordNodes("with"));
+		
+		//Changing the network drops the postings
+		parentParams.networkChanged();
+		assertNull(parentParams.getPostings(attName));
+	}
+	
+	@Test
+	public void testSharedNetworkCounts() {
+		
+		cloudParams.initializeNetworkCounts();
+		String key = parentParams.getNetworkCountsKey(cloudParams.getAttributeNames());
+		NetworkCounts counts = parentParams.getNetworkCounts(key);
+		assertEquals(counts.getReferences(), 1);
+		
+		//A second cloud borrows the counts instead of counting again
+		CloudParameters secondCloud = new CloudParameters();
+		secondCloud.setCloudName("SecondCloud");
+		secondCloud.setNetworkParams(parentParams);
+		parentParams.addCloud("SecondCloud", secondCloud);
+		secondCloud.initializeNetworkCounts();
+		assertEquals(counts.getReferences(), 2);
+		assertEquals(secondCloud.getNetworkCounts(), cloudParams.getNetworkCounts());
+		assertEquals(secondCloud.getNetworkNumNodes(), cloudParams.getNetworkNumNodes());
+		
+		//Removing a cloud gives its counts back
+		parentParams.removeCloud("SecondCloud");
+		assertEquals(counts.getReferences(), 1);
+		
+		//A changed filter gives a new key and new counts
+		parentParams.getFilter().add("onenode");
+		assertFalse(key.equals(parentParams.getNetworkCountsKey(cloudParams.getAttributeNames())));
+		CloudParameters thirdCloud = new CloudParameters();
+		thirdCloud.setNetworkParams(parentParams);
+		thirdCloud.initializeNetworkCounts();
+		assertNull(thirdCloud.getNetworkCounts().get("onenode"));
+		assertEquals((Integer)cloudParams.getNetworkCounts().get("onenode"), new Integer(4));
+		
+		//Recounting the first cloud drops the old counts
+		parentParams.networkChanged();
+		cloudParams.initializeNetworkCounts();
+		assertEquals(counts.getReferences(), 0);
+		assertNull(parentParams.getNetworkCounts(key));
+	}
+	
+	@Test
+	public void testLazyPairCounts() {
+		
+		//No pairs are counted for a cloud without clustering
+		cloudParams.calculateFontSizes();
+		String key = parentParams.getNetworkCountsKey(cloudParams.getAttributeNames());
+		NetworkCounts counts = parentParams.getNetworkCounts(key);
+		assertNull(counts.getPairCounts());
+		
+		//Asking for them counts them once for every cloud sharing the counts
+		assertEquals(cloudParams.getPairRatios().get("node" + charString + "onenode"), 
+				new Double((1.0*13)/(7*2)));
+		assertNotNull(counts.getPairCounts());
+		CloudParameters secondCloud = new CloudParameters();
+		secondCloud.setNetworkParams(parentParams);
+		secondCloud.initializeNetworkCounts();
+		assertEquals(secondCloud.getNetworkPairCounts(), cloudParams.getNetworkPairCounts());
+		
+		//A new selection drops the selected pairs and ratios
+		List<String> selNodeNames = new ArrayList<String>();
+		selNodeNames.add(Cytoscape.getCyNode("Node onenode", true).toString());
+		cloudParams.setSelectedNodes(selNodeNames);
+		cloudParams.updateRatios();
+		assertEquals(cloudParams.getSelectedPairCounts().size(), 1);
+		assertEquals(cloudParams.getPairRatios().get("node" + charString + "onenode"), 
+				new Double((1.0*13)/(1*2)));
+	}
+	
+	@Test
+	public void testNetworkCounter() {
+		
+		//Enough nodes to be split up on machines with several processors
+		WordDictionary dictionary = WordDictionary.getInstance();
+		int numNodes = 6000;
+		int[][] nodeWordIds = new int[numNodes * 2][];
+		int[] positions = new int[numNodes];
+		Random random = new Random(11);
+		for (int n = 0; n < numNodes; n++)
+		{
+			positions[n] = n * 2;
+			for (int i = 0; i < 2; i++)
+			{
+				LinkedHashSet<Integer> words = new LinkedHashSet<Integer>();
+				int numWords = random.nextInt(6);
+				for (int j = 0; j < numWords; j++)
+					words.add(dictionary.getId("counterword" + random.nextInt(300)));
+				if (random.nextInt(10) == 0)
+					words.add(dictionary.getId("the"));
+				
+				int[] ids = new int[words.size()];
+				int k = 0;
+				for (Integer id : words)
+					ids[k++] = id;
+				nodeWordIds[n * 2 + i] = ids;
+			}
+		}
+		
+		NetworkCounter counter = new NetworkCounter(nodeWordIds, positions, 2, 
+				parentParams.getFilter(), dictionary);
+		counter.run();
+		
+		for (int i = 0; i < 2; i++)
+		{
+			//Count the attribute the same way on this thread
+			HashMap<Integer, Integer> counts = new HashMap<Integer, Integer>();
+			HashMap<Long, Integer> pairCounts = new HashMap<Long, Integer>();
+			HashMap<Integer, Integer> nodeCounts = new HashMap<Integer, Integer>();
+			for (int n = 0; n < numNodes; n++)
+			{
+				int[] ids = nodeWordIds[n * 2 + i];
+				int lastWordId = -1;
+				for (int j = 0; j < ids.length; j++)
+				{
+					int curWordId = ids[j];
+					if (parentParams.getFilter().contains(dictionary.getWord(curWordId)))
+					{
+						assertNull(counter.getPostings(i).get(curWordId));
+						continue;
+					}
+					
+					this.increment(nodeCounts, curWordId);
+					this.increment(counts, curWordId);
+					if (lastWordId >= 0)
+						this.increment(pairCounts, LongIntHashMap.pairKey(lastWordId, curWordId));
+					lastWordId = curWordId;
+				}
+			}
+			
+			IntIntHashMap wordCounts = counter.getWordCounts(i);
+			assertEquals(wordCounts.size(), counts.size());
+			for (Integer id : counts.keySet())
+				assertEquals(wordCounts.get(id), counts.get(id).intValue());
+			assertFalse(wordCounts.containsKey(dictionary.getId("the")));
+			
+			//Pairs come from the rows of the matrix
+			LongIntHashMap counterPairs = new LongIntHashMap();
+			counter.getMatrix(i).countPairs(counterPairs);
+			assertEquals(counterPairs.size(), pairCounts.size());
+			for (Long key : pairCounts.keySet())
+				assertEquals(counterPairs.get(key), pairCounts.get(key).intValue());
+			
+			//Postings hold the counted words at the given positions
+			WordPostings postings = counter.getPostings(i);
+			for (Integer id : nodeCounts.keySet())
+			{
+				int[] nodes = postings.get(id).toArray();
+				assertEquals(nodes.length, nodeCounts.get(id).intValue());
+				for (int k = 0; k < nodes.length; k++)
+					assertEquals(nodes[k] % 2, 0);
+			}
+		}
+	}
+	
+	@Test
+	public void testAttributeCounts() {
+		
+		Cytoscape.getNodeAttributes().setAttribute("Node onenode", "summary", "Cell death");
+		Cytoscape.getNodeAttributes().setAttribute("ONENODE", "summary", "Cell onenode");
+		cloudParams.initializeNetworkCounts();
+		
+		//Adding an attribute only counts the new one
+		ArrayList<String> attributes = new ArrayList<String>(cloudParams.getAttributeNames());
+		attributes.add("summary");
+		cloudParams.setAttributeNames(attributes);
+		NetworkCounts nameCounts = parentParams.getAttributeCounts(attributes.get(0));
+		cloudParams.initializeNetworkCounts();
+		assertTrue(nameCounts == parentParams.getAttributeCounts(attributes.get(0)));
+		assertNotNull(parentParams.getAttributeCounts("summary"));
+		
+		//The counts are the sum of both attributes
+		HashMap<String,Integer> counts = cloudParams.getNetworkCounts();
+		assertEquals((Integer)counts.get("onenode"), new Integer(6));
+		assertEquals((Integer)counts.get("cell"), new Integer(4));
+		assertEquals(cloudParams.getNetworkNumNodes(), new Integer(26));
+		assertEquals((Integer)cloudParams.getNetworkPairCounts().get("cell" + charString + "death"), 
+				new Integer(2));
+		
+		//Removing it again is only a sum
+		attributes = new ArrayList<String>(attributes);
+		attributes.remove("summary");
+		cloudParams.setAttributeNames(attributes);
+		cloudParams.initializeNetworkCounts();
+		assertEquals((Integer)cloudParams.getNetworkCounts().get("onenode"), new Integer(4));
+		assertNull(cloudParams.getNetworkCounts().get("cell"));
+	}
+	
+	/**
+	 * Adds one to the count of a key.
+	 */
+	private <K> void increment(HashMap<K, Integer> counts, K key)
+	{
+		Integer count = counts.get(key);
+		counts.put(key, (count == null) ? 1 : count + 1);
+	}
+	
+	@Test
+	public void testIntersectedCounts() {
+		
+		//Selected counts are added up from the matrix rows
+		cloudParams.updateSelectedCounts();
+		
+		//The same selection in a larger network gives the same counts
+		SemanticSummaryParameters largeParams = new SemanticSummaryParameters();
+		List<String> nodeNames = new ArrayList<String>(parentParams.getNetworkNodes());
+		for (int i = 0; i < 30; i++)
+			nodeNames.add(Cytoscape.getCyNode("Filler node " + i, true).toString());
+		largeParams.setNetworkNodes(nodeNames);
+		
+		CloudParameters largeCloud = new CloudParameters();
+		largeCloud.setNetworkParams(largeParams);
+		largeCloud.setSelectedNodes(cloudParams.getSelectedNodes());
+		largeCloud.updateSelectedCounts();
+		
+		assertEquals(largeCloud.getSelectedCounts(), cloudParams.getSelectedCounts());
+		assertEquals(largeCloud.getSelectedPairCounts(), cloudParams.getSelectedPairCounts());
+		assertEquals((Integer)cloudParams.getSelectedCounts().get("node"), new Integer(5));
+		assertEquals((Integer)cloudParams.getSelectedPairCounts().get("node" + charString + "onenode"), 
+				new Integer(1));
+		
+		//A node outside the network is read along with the rest
+		List<String> selNodeNames = new ArrayList<String>(cloudParams.getSelectedNodes());
+		selNodeNames.add(Cytoscape.getCyNode("Zebrafish node", true).toString());
+		CloudParameters outsideCloud = new CloudParameters();
+		outsideCloud.setNetworkParams(largeParams);
+		outsideCloud.setSelectedNodes(selNodeNames);
+		outsideCloud.updateSelectedCounts();
+		
+		assertEquals((Integer)outsideCloud.getSelectedCounts().get("node"), new Integer(6));
+		assertEquals((Integer)outsideCloud.getSelectedCounts().get("zebrafish"), new Integer(1));
+		assertEquals(outsideCloud.getSelectedPairCounts().get("node" + charString + "onenode"), 
+				largeCloud.getSelectedPairCounts().get("node" + charString + "onenode"));
+	}
+	
+	@Test
+	public void testSelectionCounter() {
+		
+		//Overlapping selections, one twice over and one outside the network
+		List<String> allNodes = parentParams.getNetworkNodes();
+		List<List<String>> selections = new ArrayList<List<String>>();
+		selections.add(cloudParams.getSelectedNodes());
+		selections.add(allNodes.subList(0, 3));
+		selections.add(allNodes);
+		List<String> outside = new ArrayList<String>(allNodes.subList(2, 5));
+		outside.add(Cytoscape.getCyNode("Zebrafish node", true).toString());
+		selections.add(outside);
+		
+		List<CloudParameters> clouds = SelectionCounter.createClouds(parentParams, selections, 
+				new CloudParameters());
+		assertEquals(clouds.size(), 4);
+		
+		for (int i = 0; i < clouds.size(); i++)
+		{
+			CloudParameters curCloud = clouds.get(i);
+			assertTrue(parentParams.containsCloud(curCloud.getCloudName()));
+			assertTrue(curCloud.getSelInitialized());
+			
+			//Each matches a cloud counted on its own
+			CloudParameters single = new CloudParameters();
+			single.setNetworkParams(parentParams);
+			single.setSelectedNodes(selections.get(i));
+			single.updateSelectedCounts();
+			assertEquals(curCloud.getSelectedCounts(), single.getSelectedCounts());
+			assertEquals(curCloud.getSelectedNumNodes(), single.getSelectedNumNodes());
+			assertEquals(curCloud.getSelectedPairCounts(), single.getSelectedPairCounts());
+		}
+		assertEquals((Integer)clouds.get(2).getSelectedCounts().get("onenode"), new Integer(4));
+		assertEquals((Integer)clouds.get(3).getSelectedCounts().get("zebrafish"), new Integer(1));
+		
+		//Clouds take their attributes and settings from the template
+		Cytoscape.getNodeAttributes().setAttribute("Node onenode", "annotation", "Cell death");
+		Cytoscape.getNodeAttributes().setAttribute("ONENODE", "annotation", "Cell cycle");
+		CloudParameters template = new CloudParameters();
+		ArrayList<String> attributes = new ArrayList<String>();
+		attributes.add("annotation");
+		template.setAttributeNames(attributes);
+		template.setNetWeightFactor(0.5);
+		template.setDisplayStyle("No Clustering");
+		
+		clouds = SelectionCounter.createClouds(parentParams, selections, template);
+		for (int i = 0; i < clouds.size(); i++)
+		{
+			CloudParameters curCloud = clouds.get(i);
+			assertEquals(curCloud.getAttributeNames(), attributes);
+			assertEquals(curCloud.getNetWeightFactor(), 0.5);
+			assertEquals(curCloud.getDisplayStyle(), "No Clustering");
+			
+			CloudParameters single = new CloudParameters();
+			single.setNetworkParams(parentParams);
+			single.setAttributeNames(new ArrayList<String>(attributes));
+			single.setSelectedNodes(selections.get(i));
+			single.updateSelectedCounts();
+			assertEquals(curCloud.getSelectedCounts(), single.getSelectedCounts());
+			assertEquals(curCloud.getSelectedNumNodes(), single.getSelectedNumNodes());
+		}
+		assertEquals((Integer)clouds.get(2).getSelectedCounts().get("cell"), new Integer(4));
+		assertNull(clouds.get(2).getSelectedCounts().get("onenode"));
+		
+		Cytoscape.getNodeAttributes().deleteAttribute("Node onenode", "annotation");
+		Cytoscape.getNodeAttributes().deleteAttribute("ONENODE", "annotation");
+	}
+	
+	@Test
+	public void testGroupClouds() {
+		
+		//Two clusters, with one node in neither
+		Cytoscape.getNodeAttributes().setAttribute("Node onenode", "cluster", "1");
+		Cytoscape.getNodeAttributes().setAttribute("Node twonode", "cluster", "1");
+		Cytoscape.getNodeAttributes().setAttribute("Double double", "cluster", "2");
+		
+		int numClouds = parentParams.getClouds().size();
+		LinkedHashMap<String, CloudParameters> groups = 
+			SelectionCounter.createGroupClouds(parentParams, "cluster", new CloudParameters());
+		assertEquals(groups.size(), 2);
+		assertEquals(parentParams.getClouds().size(), numClouds + 2);
+		
+		//Nodes listed twice in the network are selected once
+		CloudParameters first = groups.get("1");
+		assertEquals(first.getSelectedNodes().size(), 2);
+		assertEquals((Integer)first.getSelectedCounts().get("onenode"), new Integer(1));
+		assertEquals((Integer)first.getSelectedCounts().get("node"), new Integer(2));
+		
+		CloudParameters second = groups.get("2");
+		assertEquals(second.getSelectedNodes().size(), 1);
+		assertEquals((Integer)second.getSelectedCounts().get("double"), new Integer(1));
+		assertNull(second.getSelectedCounts().get("node"));
+		
+		//A node with a list value is in the group of each element, and the
+		//clouds count the attributes of the template
+		List<String> one = new ArrayList<String>();
+		one.add("1");
+		List<String> both = new ArrayList<String>();
+		both.add("1");
+		both.add("2");
+		Cytoscape.getNodeAttributes().setListAttribute("Node onenode", "modules", one);
+		Cytoscape.getNodeAttributes().setListAttribute("ONENODE", "modules", both);
+		Cytoscape.getNodeAttributes().setAttribute("Node onenode", "annotation", "Cell death");
+		Cytoscape.getNodeAttributes().setAttribute("ONENODE", "annotation", "Cell cycle");
+		CloudParameters template = new CloudParameters();
+		ArrayList<String> attributes = new ArrayList<String>();
+		attributes.add("annotation");
+		template.setAttributeNames(attributes);
+		
+		groups = SelectionCounter.createGroupClouds(parentParams, "modules", template);
+		assertEquals(groups.size(), 2);
+		first = groups.get("1");
+		assertEquals(first.getSelectedNodes().size(), 2);
+		assertEquals((Integer)first.getSelectedCounts().get("cell"), new Integer(2));
+		assertNull(first.getSelectedCounts().get("onenode"));
+		second = groups.get("2");
+		assertEquals(second.getSelectedNodes().size(), 1);
+		assertEquals((Integer)second.getSelectedCounts().get("cycle"), new Integer(1));
+		assertNull(second.getSelectedCounts().get("death"));
+		
+		String[] nodeIDs = {"Node onenode", "Node twonode", "Double double", "ONENODE"};
+		for (int i = 0; i < nodeIDs.length; i++)
+		{
+			Cytoscape.getNodeAttributes().deleteAttribute(nodeIDs[i], "cluster");
+			Cytoscape.getNodeAttributes().deleteAttribute(nodeIDs[i], "modules");
+			Cytoscape.getNodeAttributes().deleteAttribute(nodeIDs[i], "annotation");
+		}
+	}
+	
+	@Test
+	public void testCountSummary() {
+		
+		cloudParams.updateRatios();
+		WordDictionary dictionary = WordDictionary.getInstance();
+		
+		//Count the network in two shards
+		List<String> allNodes = parentParams.getNetworkNodes();
+		CloudParameters[] shards = new CloudParameters[2];
+		for (int i = 0; i < 2; i++)
+		{
+			SemanticSummaryParameters shardParams = new SemanticSummaryParameters();
+			shardParams.setNetworkNodes(allNodes.subList(i * 6, (i == 0) ? 6 : allNodes.size()));
+			shards[i] = new CloudParameters();
+			shards[i].setNetworkParams(shardParams);
+			shards[i].setSelectedNodes(cloudParams.getSelectedNodes());
+		}
+		
+		//Merge the summaries after a trip through their blobs
+		CountSummary network = new CountSummary();
+		for (int i = 0; i < 2; i++)
+		{
+			byte[] blob = shards[i].getNetworkSummary().toBytes(dictionary);
+			network.addAll(new CountSummary(blob, dictionary));
+		}
+		CountSummary selected = new CountSummary();
+		selected.addAll(new CountSummary(shards[1].getSelectedSummary().toBytes(dictionary), 
+				dictionary));
+		assertEquals(network.getNumNodes(), 13);
+		assertEquals(selected.getNumNodes(), 7);
+		
+		//A cloud using the merged summaries matches the one counted whole
+		CloudParameters merged = new CloudParameters();
+		merged.setNetworkParams(parentParams);
+		merged.setSelectedNodes(cloudParams.getSelectedNodes());
+		merged.setNetWeightFactor(cloudParams.getNetWeightFactor());
+		merged.useSummaries(network, selected);
+		merged.updateRatios();
+		
+		assertEquals(merged.getNetworkCounts(), cloudParams.getNetworkCounts());
+		assertEquals(merged.getNetworkPairCounts(), cloudParams.getNetworkPairCounts());
+		assertEquals(merged.getSelectedCounts(), cloudParams.getSelectedCounts());
+		assertEquals(merged.getRatios(), cloudParams.getRatios());
+		assertEquals(merged.getPairRatios(), cloudParams.getPairRatios());
+		
+		//Words of any length and script survive the trip
+		StringBuffer longWord = new StringBuffer();
+		for (int i = 0; i < 30000; i++)
+			longWord.append("\u00e9\u4e2d");
+		int longId = dictionary.getId(longWord.toString());
+		IntIntHashMap longCounts = new IntIntHashMap();
+		longCounts.add(longId, 3);
+		CountSummary longSummary = new CountSummary(new CountSummary(longCounts, 
+				new LongIntHashMap(), 1).toBytes(dictionary), dictionary);
+		assertEquals(longSummary.getWordCounts().size(), 1);
+		assertEquals(longSummary.getWordCounts().get(longId), 3);
+		
+		//Anything else is not a summary, including summaries with a
+		//negative number of words, a word cut short or a pair of a word
+		//that is not there
+		byte[][] badBlobs = {
+				{1, 2, 3, 4, 5},
+				{0x57, 0x43, 0x53, 0x31, 0, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x0F},
+				{0x57, 0x43, 0x53, 0x31, 0, 1, 5, 'a', 1, 0},
+				{0x57, 0x43, 0x53, 0x31, 0, 1, 1, 'a', 1, 1, 0, 5, 1}};
+		for (int i = 0; i < badBlobs.length; i++)
+		{
+			try
+			{
+				new CountSummary(badBlobs[i], dictionary);
+				fail();
+			}
+			catch (IllegalArgumentException e)
+			{
+			}
+		}
+	}
+	
+	@Test
+	public void testSelectionDelta() {
+		
+		//Count the selection and its pairs
+		cloudParams.updateRatios();
+		cloudParams.getSelectedPairCounts();
+		List<String> allSelected = cloudParams.getSelectedNodes();
+		String doubleNode = Cytoscape.getCyNode("Double double", true).toString();
+		
+		//Removing a node takes its words off
+		List<String> fewer = new ArrayList<String>(allSelected);
+		fewer.remove(doubleNode);
+		cloudParams.setSelectedNodes(fewer);
+		cloudParams.updateRatios();
+		assertNull(cloudParams.getSelectedCounts().get("double"));
+		assertEquals(cloudParams.getSelectedNumNodes(), new Integer(6));
+		
+		CloudParameters recounted = new CloudParameters();
+		recounted.setNetworkParams(parentParams);
+		recounted.setSelectedNodes(fewer);
+		recounted.setNetWeightFactor(cloudParams.getNetWeightFactor());
+		recounted.updateRatios();
+		assertEquals(cloudParams.getSelectedCounts(), recounted.getSelectedCounts());
+		assertEquals(cloudParams.getSelectedPairCounts(), recounted.getSelectedPairCounts());
+		assertEquals(cloudParams.getRatios(), recounted.getRatios());
+		
+		//Adding it back matches the first count
+		cloudParams.setSelectedNodes(new ArrayList<String>(allSelected));
+		cloudParams.updateRatios();
+		assertEquals(cloudParams.getSelectedCounts().get("double"), new Integer(1));
+		assertEquals(cloudParams.getSelectedCounts().get("node"), new Integer(5));
+		assertEquals(cloudParams.getSelectedNumNodes(), new Integer(7));
+	}
 }
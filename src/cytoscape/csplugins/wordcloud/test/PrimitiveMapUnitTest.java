@@ -0,0 +1,269 @@
+/*
+ File: PrimitiveMapUnitTest.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+ 
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+ 
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import cytoscape.csplugins.wordcloud.IntIntHashMap;
+import cytoscape.csplugins.wordcloud.LongIntHashMap;
+import cytoscape.csplugins.wordcloud.NodeBitmap;
+import cytoscape.csplugins.wordcloud.NodeWordMatrix;
+
+/**
+ * This class tests the primitive hash tables and bitmaps used for counting.
+ * @author Layla Oesper
+ * @version 1.0
+ *
+ */
+
+public class PrimitiveMapUnitTest extends TestCase {
+
+	@Test
+	public void testIntIntHashMap() {
+		IntIntHashMap counts = new IntIntHashMap();
+		assertEquals(counts.get(5), 0);
+		assertFalse(counts.containsKey(5));
+		
+		assertEquals(counts.add(5, 1), 1);
+		assertEquals(counts.add(5, 1), 2);
+		counts.put(0, 7);
+		assertEquals(counts.get(5), 2);
+		assertEquals(counts.get(0), 7);
+		assertEquals(counts.size(), 2);
+		
+		int[] keys = counts.sortedKeys();
+		assertEquals(keys.length, 2);
+		assertEquals(keys[0], 0);
+		assertEquals(keys[1], 5);
+		
+		assertEquals(counts.remove(5), 2);
+		assertFalse(counts.containsKey(5));
+		assertEquals(counts.size(), 1);
+	}
+
+	@Test
+	public void testIntIntHashMapRandom() {
+		//Compare against a HashMap through growing and removing
+		IntIntHashMap counts = new IntIntHashMap();
+		HashMap<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		Random random = new Random(42);
+		
+		for (int i = 0; i < 20000; i++)
+		{
+			int key = random.nextInt(3000);
+			if (random.nextInt(4) == 0)
+			{
+				Integer old = expected.remove(key);
+				assertEquals(counts.remove(key), (old == null) ? 0 : old.intValue());
+			}
+			else
+			{
+				Integer old = expected.get(key);
+				expected.put(key, (old == null) ? 1 : old + 1);
+				counts.add(key, 1);
+			}
+		}
+		
+		assertEquals(counts.size(), expected.size());
+		int found = 0;
+		for (int slot = 0; slot < counts.capacity(); slot++)
+		{
+			if (!counts.isUsed(slot))
+				continue;
+			
+			assertEquals(expected.get(counts.keyAt(slot)).intValue(), counts.valueAt(slot));
+			found++;
+		}
+		assertEquals(found, expected.size());
+	}
+
+	@Test
+	public void testLongIntHashMap() {
+		LongIntHashMap pairs = new LongIntHashMap();
+		long key = LongIntHashMap.pairKey(3, 70000);
+		assertEquals(LongIntHashMap.getFirstId(key), 3);
+		assertEquals(LongIntHashMap.getSecondId(key), 70000);
+		assertTrue(key != LongIntHashMap.pairKey(70000, 3));
+		
+		//Many pairs sharing a second word, through growing
+		for (int i = 0; i < 5000; i++)
+		{
+			pairs.add(LongIntHashMap.pairKey(i, 7), 1);
+			pairs.add(LongIntHashMap.pairKey(i, 7), i);
+		}
+		pairs.add(key, 2);
+		assertEquals(pairs.size(), 5001);
+		assertEquals(pairs.get(LongIntHashMap.pairKey(10, 7)), 11);
+		assertEquals(pairs.get(LongIntHashMap.pairKey(7, 10)), 0);
+		
+		int found = 0;
+		for (int slot = 0; slot < pairs.capacity(); slot++)
+		{
+			if (!pairs.isUsed(slot))
+				continue;
+			
+			if (pairs.firstIdAt(slot) == 3 && pairs.secondIdAt(slot) == 70000)
+				assertEquals(pairs.valueAt(slot), 2);
+			else
+			{
+				assertEquals(pairs.secondIdAt(slot), 7);
+				assertEquals(pairs.valueAt(slot), pairs.firstIdAt(slot) + 1);
+			}
+			found++;
+		}
+		assertEquals(found, 5001);
+		
+		assertEquals(pairs.remove(key), 2);
+		assertEquals(pairs.remove(LongIntHashMap.pairKey(10, 7)), 11);
+		assertEquals(pairs.get(LongIntHashMap.pairKey(11, 7)), 12);
+		assertEquals(pairs.size(), 4999);
+	}
+
+	@Test
+	public void testNodeBitmap() {
+		//Sparse values, a dense block and a long run in separate containers
+		NodeBitmap nodes = new NodeBitmap();
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		Random random = new Random(7);
+		for (int i = 0; i < 300; i++)
+			expected.add(random.nextInt(1000000));
+		for (int i = 0; i < 30000; i++)
+			expected.add(65536 * 20 + random.nextInt(65536));
+		for (int i = 0; i < 70000; i++)
+			expected.add(65536 * 40 + i);
+		
+		for (Integer value : expected)
+			nodes.add(value);
+		nodes.add(65536 * 40 + 5); //already there
+		
+		this.checkBitmap(nodes, expected);
+		nodes.runOptimize();
+		this.checkBitmap(nodes, expected);
+		
+		//Adding after optimizing, out of order
+		nodes.add(65536 * 40 + 80000);
+		nodes.add(3);
+		expected.add(65536 * 40 + 80000);
+		expected.add(3);
+		this.checkBitmap(nodes, expected);
+		
+		//Intersections across container types
+		NodeBitmap other = new NodeBitmap();
+		TreeSet<Integer> otherExpected = new TreeSet<Integer>();
+		for (int i = 0; i < 50000; i++)
+			otherExpected.add(random.nextInt(65536 * 42));
+		for (Integer value : otherExpected)
+			other.add(value);
+		
+		int common = 0;
+		for (Integer value : otherExpected)
+		{
+			if (expected.contains(value))
+				common++;
+		}
+		assertEquals(nodes.andCardinality(other), common);
+		assertEquals(other.andCardinality(nodes), common);
+		other.runOptimize();
+		assertEquals(nodes.andCardinality(other), common);
+		
+		//Runs against the bitmap and run containers, crossing word edges
+		NodeBitmap runs = new NodeBitmap();
+		common = 0;
+		for (int k = 0; k < 200; k++)
+		{
+			for (int v = 0; v < 150; v++)
+			{
+				int value = (k % 2 == 0 ? 65536 * 20 : 65536 * 40) + k * 311 + v;
+				runs.add(value);
+				if (expected.contains(value))
+					common++;
+			}
+		}
+		runs.runOptimize();
+		assertEquals(runs.andCardinality(nodes), common);
+		assertEquals(nodes.andCardinality(runs), common);
+		
+		//An empty set can still be added to once optimized
+		NodeBitmap empty = new NodeBitmap();
+		empty.runOptimize();
+		empty.add(70000);
+		assertTrue(empty.contains(70000));
+		assertEquals(empty.getCardinality(), 1);
+	}
+	
+	@Test
+	public void testNodeWordMatrix() {
+		//Two ranges of rows joined, with empty rows between them
+		NodeWordMatrix matrix = new NodeWordMatrix(0);
+		matrix.addRow(0, new int[] {1, 2, 3, 9}, 3);
+		matrix.addRow(2, new int[] {2, 3}, 2);
+		NodeWordMatrix later = new NodeWordMatrix(5);
+		later.addRow(5, new int[] {3, 1}, 2);
+		later.addRow(7, new int[] {4}, 1);
+		matrix.addAll(later);
+		matrix.trim();
+		
+		assertEquals(matrix.getNumEntries(), 8);
+		assertEquals(matrix.getRow(1).length, 0);
+		assertEquals(matrix.getRow(5)[1], 1);
+		assertEquals(matrix.getRow(8).length, 0);
+		
+		//Node 2 selected twice, 6 and 9 have no words
+		IntIntHashMap wordCounts = new IntIntHashMap();
+		LongIntHashMap pairCounts = new LongIntHashMap();
+		matrix.multiply(new int[] {0, 2, 2, 5, 6, 9}, wordCounts, pairCounts);
+		assertEquals(wordCounts.size(), 3);
+		assertEquals(wordCounts.get(1), 2);
+		assertEquals(wordCounts.get(2), 3);
+		assertEquals(wordCounts.get(3), 4);
+		assertEquals(pairCounts.size(), 3);
+		assertEquals(pairCounts.get(LongIntHashMap.pairKey(1, 2)), 1);
+		assertEquals(pairCounts.get(LongIntHashMap.pairKey(2, 3)), 3);
+		assertEquals(pairCounts.get(LongIntHashMap.pairKey(3, 1)), 1);
+	}
+	
+	/**
+	 * Checks that a bitmap holds exactly the expected values.
+	 */
+	private void checkBitmap(NodeBitmap nodes, TreeSet<Integer> expected)
+	{
+		assertEquals(nodes.getCardinality(), expected.size());
+		int[] values = nodes.toArray();
+		int i = 0;
+		for (Integer value : expected)
+		{
+			assertEquals(values[i++], value.intValue());
+			assertTrue(nodes.contains(value));
+		}
+		assertFalse(nodes.contains(65536 * 40 + 75000));
+		assertFalse(nodes.contains(-1));
+	}
+}
@@ -23,13 +23,21 @@
 package cytoscape.csplugins.wordcloud.test;
 
 import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import cytoscape.csplugins.wordcloud.CloudParameters;
+import cytoscape.csplugins.wordcloud.IntIntHashMap;
+import cytoscape.csplugins.wordcloud.NetworkCounts;
+import cytoscape.csplugins.wordcloud.NodeWordMatrix;
 import cytoscape.csplugins.wordcloud.SemanticSummaryParameters;
+import cytoscape.csplugins.wordcloud.WordPostings;
 
 /**
  * This class tests the functionality of the SemanticSummaryParameters class.
@@ -96,6 +104,44 @@ public class SemanticSummaryParametersUnitTest extends TestCase {
 		assertFalse(nonParams.getCountInitialized());
 	}
 
+	@Test
+	public void testAttributeChanged() {
+		params.addCloud(cloudName,cloudParams);
+		params.addCloud(nonName, nonParams);
+		ArrayList<String> otherNames = new ArrayList<String>();
+		otherNames.add("other");
+		nonParams.setAttributeNames(otherNames);
+		String changed = cloudParams.getAttributeNames().get(0);
+		
+		NetworkCounts changedCounts = new NetworkCounts(new IntIntHashMap(), null, 
+				new WordPostings[0], new NodeWordMatrix[0], 0);
+		NetworkCounts otherCounts = new NetworkCounts(new IntIntHashMap(), null, 
+				new WordPostings[0], new NodeWordMatrix[0], 0);
+		params.putAttributeCounts(changed, changedCounts);
+		params.putAttributeCounts("other", otherCounts);
+		String bothKey = params.getNetworkCountsKey(Arrays.asList(changed, "other"));
+		String otherKey = params.getNetworkCountsKey(otherNames);
+		params.addNetworkCounts(bothKey, changedCounts);
+		params.addNetworkCounts(otherKey, otherCounts);
+		
+		cloudParams.setCountInitialized(true);
+		nonParams.setCountInitialized(true);
+		params.attributeChanged(changed);
+		
+		//Only the counts and clouds using the attribute are reset
+		assertNull(params.getAttributeCounts(changed));
+		assertNull(params.getNetworkCounts(bothKey));
+		assertTrue(params.getAttributeCounts("other") == otherCounts);
+		assertTrue(params.getNetworkCounts(otherKey) == otherCounts);
+		assertFalse(cloudParams.getCountInitialized());
+		assertTrue(nonParams.getCountInitialized());
+		
+		//New network nodes drop all stored counts
+		params.setNetworkNodes(new ArrayList<String>());
+		assertNull(params.getAttributeCounts("other"));
+		assertNull(params.getNetworkCounts(otherKey));
+	}
+
 	@Test
 	public void testGetNextCloudName() {
 		String nextName = params.getNextCloudName();
@@ -0,0 +1,249 @@
+/*
+ File: WordTokenizerUnitTest.java
+
+ Copyright 2010 - The Cytoscape Consortium (www.cytoscape.org)
+ 
+ Code written by: Layla Oesper
+ Authors: Layla Oesper, Ruth Isserlin, Daniele Merico
+ 
+ This library is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ This library is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with this project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package cytoscape.csplugins.wordcloud.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import cytoscape.csplugins.wordcloud.ParallelTokenizer;
+import cytoscape.csplugins.wordcloud.WordDelimiters;
+import cytoscape.csplugins.wordcloud.WordDictionary;
+import cytoscape.csplugins.wordcloud.WordIdCollector;
+import cytoscape.csplugins.wordcloud.WordTokenizer;
+
+/**
+ * This class tests the functionality of the WordTokenizer class.
+ * @author Layla Oesper
+ * @version 1.0
+ *
+ */
+
+public class WordTokenizerUnitTest extends TestCase {
+	
+	WordDelimiters delims = new WordDelimiters();
+
+	@Test
+	public void testTokenize() {
+		WordTokenizer tokenizer = new WordTokenizer(delims);
+		List<String> words = tokenizer.tokenize("Reactome_node to STRIP lots from.");
+		assertEquals(words.size(), 6);
+		assertEquals(words.get(0), "reactome");
+		assertEquals(words.get(1), "node");
+		assertEquals(words.get(3), "strip");
+		assertEquals(words.get(5), "from");
+	}
+
+	@Test
+	public void testRepeatedWords() {
+		WordTokenizer tokenizer = new WordTokenizer(delims);
+		List<String> words = tokenizer.tokenize("Double double\tDOUBLE");
+		assertEquals(words.size(), 1);
+		assertEquals(words.get(0), "double");
+	}
+
+	@Test
+	public void testDelimsToAdd() {
+		WordTokenizer tokenizer = new WordTokenizer(delims);
+		List<String> words = tokenizer.tokenize("non-stripped");
+		assertEquals(words.size(), 1);
+		
+		delims.addDelimToUse("-");
+		tokenizer = new WordTokenizer(delims);
+		words = tokenizer.tokenize("non-stripped");
+		assertEquals(words.size(), 2);
+		assertEquals(words.get(1), "stripped");
+	}
+
+	@Test
+	public void testSharedTokenizer() {
+		WordTokenizer tokenizer = delims.getTokenizer();
+		int version = delims.getVersion();
+		assertTrue(tokenizer == delims.getTokenizer());
+		
+		//Changing the set rebuilds the tokenizer
+		delims.addDelimToUse("-");
+		WordTokenizer newTokenizer = delims.getTokenizer();
+		assertFalse(tokenizer == newTokenizer);
+		assertFalse(version == delims.getVersion());
+		assertEquals(newTokenizer.getVersion(), delims.getVersion());
+		
+		version = delims.getVersion();
+		//Removing an unknown delimiter does not
+		delims.removeDelimiter("not a delimiter");
+		assertEquals(version, delims.getVersion());
+		assertTrue(newTokenizer == delims.getTokenizer());
+	}
+
+	@Test
+	public void testUserDelims() {
+		delims.addDelimToUse("GO");
+		delims.addDelimToUse("x");
+		WordTokenizer tokenizer = new WordTokenizer(delims);
+		List<String> words = tokenizer.tokenize("axbGOcgod");
+		assertEquals(words.size(), 4);
+		assertEquals(words.get(0), "a");
+		assertEquals(words.get(2), "c");
+		assertEquals(words.get(3), "d");
+	}
+
+	@Test
+	public void testUserDelimsLocale() {
+		//Delimiters fold like the values even where I does not become i
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try
+		{
+			delims.addDelimToUse("XI");
+			delims.addDelimToUse("I");
+			WordTokenizer tokenizer = new WordTokenizer(delims);
+			assertEquals(tokenizer.tokenize("fooXIbar"), Arrays.asList("foo", "bar"));
+			assertEquals(tokenizer.tokenize("aIb"), Arrays.asList("a", "b"));
+		}
+		finally
+		{
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	@Test
+	public void testLiteralUserDelims() {
+		//Delimiters are not regular expressions
+		delims.addDelimToUse("(c)");
+		delims.addDelimToUse("go.");
+		WordTokenizer tokenizer = delims.getTokenizer();
+		List<String> words = tokenizer.tokenize("Copyright(C)reactome go.0005 gox");
+		assertEquals(words.size(), 4);
+		assertEquals(words.get(0), "copyright");
+		assertEquals(words.get(1), "reactome");
+		assertEquals(words.get(2), "0005");
+		assertEquals(words.get(3), "gox");
+	}
+
+	@Test
+	public void testWordDictionary() {
+		WordDictionary dictionary = new WordDictionary();
+		WordIdCollector collector = new WordIdCollector(dictionary);
+		WordTokenizer tokenizer = delims.getTokenizer();
+		
+		tokenizer.tokenize("Cell cycle CELL death", collector);
+		assertEquals(collector.size(), 3);
+		assertEquals(dictionary.size(), 3);
+		assertEquals(dictionary.getWord(collector.get(0)), "cell");
+		assertEquals(dictionary.getWord(collector.get(2)), "death");
+		
+		//Words already seen keep their ID and String
+		String cell = dictionary.getWord(collector.get(0));
+		collector.clear();
+		tokenizer.tokenize("death of a cell", collector);
+		assertEquals(collector.size(), 4);
+		assertEquals(dictionary.size(), 5);
+		assertEquals(collector.get(0), dictionary.findId("death"));
+		assertTrue(dictionary.getWord(collector.get(3)) == cell);
+		assertEquals(dictionary.findId("apoptosis"), -1);
+	}
+	
+	@Test
+	public void testLongValue() {
+		//Every word appears many times, first-seen order is kept
+		StringBuffer value = new StringBuffer();
+		for (int i = 0; i < 500; i++)
+			value.append("word" + (i % 50) + " Word" + (i % 7) + " ");
+		
+		WordDictionary dictionary = new WordDictionary();
+		WordIdCollector collector = new WordIdCollector(dictionary);
+		delims.getTokenizer().tokenize(value.toString(), collector);
+		assertEquals(collector.size(), 50);
+		assertEquals(dictionary.getWord(collector.get(0)), "word0");
+		assertEquals(dictionary.getWord(collector.get(49)), "word49");
+		
+		//Clearing forgets what was seen
+		collector.clear();
+		delims.getTokenizer().tokenize("word3 word1 word3", collector);
+		assertEquals(collector.size(), 2);
+		assertEquals(dictionary.getWord(collector.get(0)), "word3");
+		assertEquals(delims.getTokenizer().tokenize(value.toString()).size(), 50);
+	}
+	
+	@Test
+	public void testCaseFolding() {
+		WordTokenizer tokenizer = delims.getTokenizer();
+		
+		//Accented capitals fold to the same word
+		List<String> words = tokenizer.tokenize("\u00C9COLE \u00C9cole \u00E9cole");
+		assertEquals(words.size(), 1);
+		assertEquals(words.get(0), "\u00E9cole");
+		
+		//Words that can not be folded a character at a time match String.toLowerCase
+		WordDictionary dictionary = new WordDictionary();
+		WordIdCollector collector = new WordIdCollector(dictionary);
+		String value = "\u039F\u0394\u039F\u03A3 \u03BF\u03B4\u03BF\u03C2 \uD801\uDC00";
+		tokenizer.tokenize(value, collector);
+		assertEquals(collector.size(), 2);
+		assertEquals(dictionary.getWord(collector.get(0)), "\u03BF\u03B4\u03BF\u03C2");
+		assertEquals(dictionary.getWord(collector.get(1)), "\uD801\uDC28");
+	}
+	
+	@Test
+	public void testParallelTokenizer() {
+		WordTokenizer tokenizer = delims.getTokenizer();
+		WordDictionary dictionary = new WordDictionary();
+		ParallelTokenizer batch = new ParallelTokenizer(tokenizer, dictionary);
+		
+		//Enough distinct values to be split across threads
+		List<List<String>> values = new ArrayList<List<String>>();
+		for (int i = 0; i < 10000; i++)
+		{
+			List<String> value = new ArrayList<String>();
+			value.add("Term" + (i % 3001) + " of gene" + (i % 4999));
+			value.add("Process " + i);
+			values.add(value);
+		}
+		for (int i = 0; i < values.size(); i++)
+			assertEquals(batch.add(values.get(i)), i);
+		
+		//Equal values are only added once
+		assertEquals(batch.add(new ArrayList<String>(values.get(7))), 7);
+		batch.run();
+		
+		//Same IDs as tokenizing one value at a time
+		WordDictionary sequential = new WordDictionary();
+		WordIdCollector collector = new WordIdCollector(sequential);
+		for (int i = 0; i < values.size(); i++)
+		{
+			collector.clear();
+			tokenizer.tokenize(values.get(i), collector);
+			assertTrue(Arrays.equals(collector.toArray(), batch.getWordIds(i)));
+		}
+		assertEquals(dictionary.size(), sequential.size());
+		for (int id = 0; id < dictionary.size(); id++)
+			assertEquals(dictionary.getWord(id), sequential.getWord(id));
+	}
+}